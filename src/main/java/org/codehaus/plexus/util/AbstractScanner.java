@@ -18,6 +18,7 @@
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -135,6 +136,14 @@ public abstract class AbstractScanner implements Scanner {
 
     private MatchPatterns excludesPatterns;
 
+    /**
+     * Copies of the include and exclude arrays the current match patterns were compiled from, compared by content
+     * since the protected arrays can be modified in place.
+     */
+    private String[] compiledIncludes;
+
+    private String[] compiledExcludes;
+
     /**
      * Whether or not the file system should be treated as a case sensitive one.
      */
@@ -385,8 +394,62 @@ protected void setupDefaultFilters() {
     }
 
     protected void setupMatchPatterns() {
-        includesPatterns = MatchPatterns.from(includes);
-        excludesPatterns = MatchPatterns.from(excludes);
+        if (includesPatterns == null || !Arrays.equals(includes, compiledIncludes)) {
+            includesPatterns = MatchPatterns.from(includes);
+            compiledIncludes = includes != null ? includes.clone() : null;
+        }
+        if (excludesPatterns == null || !Arrays.equals(excludes, compiledExcludes)) {
+            excludesPatterns = MatchPatterns.from(excludes);
+            compiledExcludes = excludes != null ? excludes.clone() : null;
+        }
+    }
+
+    /**
+     * Normalizes and compiles the current include and exclude patterns, so they can be handed to other scanners with
+     * {@link #setPatterns(Patterns)}.
+     *
+     * @return the compiled patterns
+     */
+    Patterns getPatterns() {
+        setupDefaultFilters();
+        setupMatchPatterns();
+        return new Patterns(compiledIncludes, includesPatterns, compiledExcludes, excludesPatterns);
+    }
+
+    /**
+     * Sets include and exclude patterns compiled by another scanner, they are not compiled again by the next scan.
+     *
+     * @param patterns the compiled patterns
+     */
+    void setPatterns(Patterns patterns) {
+        includes = patterns.includes.clone();
+        includesPatterns = patterns.includesPatterns;
+        compiledIncludes = patterns.includes;
+        excludes = patterns.excludes.clone();
+        excludesPatterns = patterns.excludesPatterns;
+        compiledExcludes = patterns.excludes;
+    }
+
+    /**
+     * Normalized include and exclude patterns together with their compiled form. Instances are immutable and can be
+     * shared between scanners and threads.
+     */
+    static final class Patterns {
+        private final String[] includes;
+
+        private final MatchPatterns includesPatterns;
+
+        private final String[] excludes;
+
+        private final MatchPatterns excludesPatterns;
+
+        private Patterns(
+                String[] includes, MatchPatterns includesPatterns, String[] excludes, MatchPatterns excludesPatterns) {
+            this.includes = includes;
+            this.includesPatterns = includesPatterns;
+            this.excludes = excludes;
+            this.excludesPatterns = excludesPatterns;
+        }
     }
 
     @Override
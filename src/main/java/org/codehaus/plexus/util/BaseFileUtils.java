@@ -5,6 +5,8 @@
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 
+import org.codehaus.plexus.util.io.CachingOutputStream;
+
 /**
  * Implementation specific to Java SE 8 version.
  */
@@ -18,4 +20,19 @@ static void fileWrite(Path path, String encoding, String data, OpenOption... ope
         byte[] bytes = encoding != null ? data.getBytes(encoding) : data.getBytes();
         Files.write(path, bytes, openOptions);
     }
+
+    static boolean fileWriteIfChanged(Path path, String encoding, String data) throws IOException {
+        byte[] bytes = encoding != null ? data.getBytes(encoding) : data.getBytes();
+        CachingOutputStream out = new CachingOutputStream(path);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return out.isModified();
+    }
+
+    static boolean contentEquals(Path path1, Path path2) throws IOException {
+        return FileUtils.channelContentEquals(path1, path2);
+    }
 }
@@ -19,4 +19,13 @@ static void copy(final InputStream input, final OutputStream output) throws IOEx
     static void copy(final Reader input, final Writer output) throws IOException {
         IOUtil.copy(input, output, DEFAULT_BUFFER_SIZE);
     }
+
+    static boolean contentEquals(final byte[] b1, final byte[] b2, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (b1[i] != b2[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
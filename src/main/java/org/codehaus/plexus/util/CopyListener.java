@@ -0,0 +1,53 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Receives the progress of the byte copies made by {@link IOUtil} and {@link FileUtils} while it is registered with
+ * {@link CopyMonitor#open(CopyListener, long)}.
+ *
+ * <p>Only the outermost copy is reported: copying a directory is one copy, the files copied within are not reported
+ * separately. Sources and destinations are the objects given to the copy method, like a <code>File</code>, a
+ * <code>URL</code> or a stream.</p>
+ */
+public interface CopyListener {
+    /**
+     * Called before the first byte is copied.
+     *
+     * @param source what is copied
+     * @param destination where it is copied to
+     */
+    void copyStarted(Object source, Object destination);
+
+    /**
+     * Called each time the configured number of bytes has been copied.
+     *
+     * @param source what is copied
+     * @param destination where it is copied to
+     * @param bytes the number of bytes copied so far
+     */
+    void copyProgressed(Object source, Object destination, long bytes);
+
+    /**
+     * Called when the copy is over, successfully or not.
+     *
+     * @param source what was copied
+     * @param destination where it was copied to
+     * @param statistics the bytes copied and the time it took
+     */
+    void copyFinished(Object source, Object destination, CopyStatistics statistics);
+}
@@ -0,0 +1,240 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Reports the copies made by the current thread to a {@link CopyListener}.</p>
+ *
+ * <pre>
+ * try (CopyMonitor monitor = CopyMonitor.open(listener, FileUtils.ONE_MB)) {
+ *     FileUtils.copyDirectoryStructure(source, target);
+ * }
+ * </pre>
+ *
+ * <p>The monitored methods are the byte copies of {@link IOUtil} (<code>copy</code> from streams, channels and paths to
+ * streams and channels) and the <code>copyFile</code>, <code>copyStreamToFile</code>, <code>copyURLToFile</code> and
+ * directory copy methods of {@link FileUtils}. While a monitor with a progress interval is open, stream copies go
+ * through a buffer instead of <code>InputStream.transferTo</code> so that their progress can be observed. Files copied
+ * by the file system are reported as a whole.</p>
+ *
+ * <p>Monitors can be nested, closing one makes the enclosing monitor current again.</p>
+ *
+ * <p>While no monitor is open and the global statistics are disabled, copies are not tracked at all.</p>
+ */
+public final class CopyMonitor implements AutoCloseable {
+    private static final ThreadLocal<CopyMonitor> CURRENT = new ThreadLocal<>();
+
+    private static final ThreadLocal<Copy> ACTIVE = new ThreadLocal<>();
+
+    /**
+     * Number of monitors open on all threads, copies are not tracked while there are none.
+     */
+    private static final AtomicInteger OPEN = new AtomicInteger();
+
+    private final CopyMonitor previous;
+
+    private final CopyListener listener;
+
+    private final long progressInterval;
+
+    private boolean closed;
+
+    private CopyMonitor(CopyMonitor previous, CopyListener listener, long progressInterval) {
+        this.previous = previous;
+        this.listener = listener;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Reports the copies of the current thread to a listener until the monitor is closed.
+     *
+     * @param listener the listener
+     * @param progressInterval number of bytes between two {@link CopyListener#copyProgressed(Object, Object, long)}
+     *            calls, 0 to only report the start and the end of copies
+     * @return the new monitor
+     */
+    public static CopyMonitor open(CopyListener listener, long progressInterval) {
+        if (progressInterval < 0) {
+            throw new IllegalArgumentException("progressInterval must not be negative: " + progressInterval);
+        }
+        CopyMonitor monitor = new CopyMonitor(CURRENT.get(), Objects.requireNonNull(listener), progressInterval);
+        CURRENT.set(monitor);
+        OPEN.incrementAndGet();
+        return monitor;
+    }
+
+    /**
+     * Stops reporting to the listener and makes the enclosing monitor current again.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        OPEN.decrementAndGet();
+        if (CURRENT.get() == this) {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private static boolean tracking() {
+        return OPEN.get() > 0 || CopyStatistics.isGlobalEnabled();
+    }
+
+    /**
+     * Runs a copy, tracked unless the thread is already inside a tracked copy which then accounts for the bytes, or
+     * copies are not tracked at all. If both the copy and the listener fail, the failure of the copy is thrown.
+     */
+    static void run(Object source, Object destination, Action action) throws IOException {
+        final Copy copy = start(source, destination);
+        try {
+            action.run();
+        } catch (Throwable e) {
+            failed(copy, e);
+            throw e;
+        } finally {
+            finish(copy);
+        }
+    }
+
+    /**
+     * Starts tracking a copy, unless the thread is already inside a tracked copy which then accounts for the bytes.
+     *
+     * @return the copy to pass to {@link #finish(Copy)}, <code>null</code> for a nested copy or if copies are not
+     *         tracked
+     */
+    private static Copy start(Object source, Object destination) {
+        if (!tracking() || ACTIVE.get() != null) {
+            return null;
+        }
+        CopyMonitor monitor = CURRENT.get();
+        Copy copy = new Copy(source, destination, monitor != null ? monitor.listener : null);
+        if (monitor != null) {
+            copy.progressInterval = monitor.progressInterval;
+            copy.nextProgress = monitor.progressInterval;
+            monitor.listener.copyStarted(source, destination);
+        }
+        ACTIVE.set(copy);
+        copy.startNanos = System.nanoTime();
+        return copy;
+    }
+
+    /**
+     * Adds copied bytes to the copy in progress on this thread.
+     */
+    static void transferred(long bytes) {
+        if (!tracking()) {
+            return;
+        }
+        Copy copy = ACTIVE.get();
+        if (copy != null) {
+            copy.transferred(bytes);
+        }
+    }
+
+    /**
+     * @return the number of bytes to copy between two progress reports, {@link Long#MAX_VALUE} if progress is not
+     *         reported
+     */
+    static long progressInterval() {
+        if (OPEN.get() == 0) {
+            return Long.MAX_VALUE;
+        }
+        Copy copy = ACTIVE.get();
+        return copy != null && copy.progressInterval > 0 ? copy.progressInterval : Long.MAX_VALUE;
+    }
+
+    /**
+     * Records the failure of a copy returned by {@link #start(Object, Object)}, does nothing for <code>null</code>.
+     */
+    private static void failed(Copy copy, Throwable failure) {
+        if (copy != null) {
+            copy.failure = failure;
+        }
+    }
+
+    /**
+     * Ends a copy returned by {@link #start(Object, Object)}, does nothing for <code>null</code>. If the copy failed,
+     * an exception of the listener is added to the suppressed exceptions of the failure instead of being thrown.
+     */
+    private static void finish(Copy copy) {
+        if (copy == null) {
+            return;
+        }
+        ACTIVE.remove();
+        CopyStatistics statistics = new CopyStatistics(1, copy.bytes, System.nanoTime() - copy.startNanos);
+        CopyStatistics.record(statistics);
+        if (copy.listener != null) {
+            try {
+                copy.listener.copyFinished(copy.source, copy.destination, statistics);
+            } catch (RuntimeException e) {
+                if (copy.failure == null) {
+                    throw e;
+                }
+                copy.failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * A copy run by {@link #run(Object, Object, Action)}.
+     */
+    interface Action {
+        void run() throws IOException;
+    }
+
+    private static final class Copy {
+        private final Object source;
+
+        private final Object destination;
+
+        private final CopyListener listener;
+
+        private long progressInterval;
+
+        private long nextProgress;
+
+        private long startNanos;
+
+        private long bytes;
+
+        private Throwable failure;
+
+        private Copy(Object source, Object destination, CopyListener listener) {
+            this.source = source;
+            this.destination = destination;
+            this.listener = listener;
+        }
+
+        private void transferred(long n) {
+            bytes += n;
+            if (progressInterval > 0 && bytes >= nextProgress) {
+                nextProgress = (bytes / progressInterval + 1) * progressInterval;
+                listener.copyProgressed(source, destination, bytes);
+            }
+        }
+    }
+}
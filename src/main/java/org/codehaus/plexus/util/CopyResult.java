@@ -0,0 +1,64 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+/**
+ * Outcome of an asynchronous copy started with {@link FileUtils#copyFileAsync(File, File, Executor)} or
+ * {@link FileUtils#copyDirectoryAsync(File, File, Executor, int)}.
+ */
+public final class CopyResult {
+    private final File source;
+
+    private final File destination;
+
+    private final CopyStatistics statistics;
+
+    CopyResult(File source, File destination, CopyStatistics statistics) {
+        this.source = source;
+        this.destination = destination;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return the copied file or directory
+     */
+    public File getSource() {
+        return source;
+    }
+
+    /**
+     * @return the file or directory copied to
+     */
+    public File getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the number of files copied, their total size and the time the copy took
+     */
+    public CopyStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        return source + " -> " + destination + ": " + statistics;
+    }
+}
@@ -0,0 +1,133 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Bytes copied and time spent by one or more copies.</p>
+ *
+ * <p>Once enabled with {@link #setGlobalEnabled(boolean)}, every copy made by {@link IOUtil} and {@link FileUtils},
+ * monitored or not, is added to a process wide total available from {@link #getGlobal()}, for instance to be exported
+ * as a metric.</p>
+ *
+ * @see CopyListener
+ */
+public final class CopyStatistics {
+    private static volatile boolean globalEnabled;
+
+    private static final LongAdder GLOBAL_COPIES = new LongAdder();
+
+    private static final LongAdder GLOBAL_BYTES = new LongAdder();
+
+    private static final LongAdder GLOBAL_NANOS = new LongAdder();
+
+    private final long copies;
+
+    private final long bytes;
+
+    private final long elapsedNanos;
+
+    CopyStatistics(long copies, long bytes, long elapsedNanos) {
+        this.copies = copies;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Starts or stops adding the copies to the global totals, which is disabled by default.
+     *
+     * @param enabled <code>true</code> to add the copies to the global totals
+     */
+    public static void setGlobalEnabled(boolean enabled) {
+        globalEnabled = enabled;
+    }
+
+    /**
+     * @return <code>true</code> if the copies are added to the global totals
+     * @see #setGlobalEnabled(boolean)
+     */
+    public static boolean isGlobalEnabled() {
+        return globalEnabled;
+    }
+
+    /**
+     * @return the totals of all copies made while the global totals were enabled, since the class was loaded or
+     *         {@link #resetGlobal()} was last called
+     */
+    public static CopyStatistics getGlobal() {
+        return new CopyStatistics(GLOBAL_COPIES.sum(), GLOBAL_BYTES.sum(), GLOBAL_NANOS.sum());
+    }
+
+    /**
+     * Sets the global totals back to zero.
+     */
+    public static void resetGlobal() {
+        GLOBAL_COPIES.reset();
+        GLOBAL_BYTES.reset();
+        GLOBAL_NANOS.reset();
+    }
+
+    static void record(CopyStatistics statistics) {
+        if (globalEnabled) {
+            GLOBAL_COPIES.add(statistics.copies);
+            GLOBAL_BYTES.add(statistics.bytes);
+            GLOBAL_NANOS.add(statistics.elapsedNanos);
+        }
+    }
+
+    /**
+     * @return the number of copies
+     */
+    public long getCopies() {
+        return copies;
+    }
+
+    /**
+     * @return the number of bytes copied
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the time spent copying, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the time spent copying, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * @return the throughput in bytes per second, 0 if no time was measured
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos > 0 ? bytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return copies + " copies, " + bytes + " bytes in " + getElapsedMillis() + " ms";
+    }
+}
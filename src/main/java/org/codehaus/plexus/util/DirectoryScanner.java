@@ -264,10 +264,11 @@ public void scan() throws IllegalStateException {
         if (basedir == null) {
             throw new IllegalStateException("No basedir set");
         }
-        if (!basedir.exists()) {
+        FileStatusCache status = FileStatusCache.current();
+        if (!status.exists(basedir)) {
             throw new IllegalStateException("basedir " + basedir + " does not exist");
         }
-        if (!basedir.isDirectory()) {
+        if (!status.isDirectory(basedir)) {
             throw new IllegalStateException("basedir " + basedir + " is not a directory");
         }
 
@@ -370,13 +371,15 @@ protected void scandir(File dir, String vpath, boolean fast) {
             // throw new IOException( "IO error scanning directory " + dir.getAbsolutePath() );
         }
 
+        FileStatusCache status = FileStatusCache.current();
+
         if (!followSymlinks) {
             try {
                 if (isParentSymbolicLink(dir, null)) {
                     for (String newfile : newfiles) {
                         String name = vpath + newfile;
                         File file = new File(dir, newfile);
-                        if (file.isDirectory()) {
+                        if (status.isDirectory(file)) {
                             dirsExcluded.add(name);
                         } else {
                             filesExcluded.add(name);
@@ -399,7 +402,7 @@ protected void scandir(File dir, String vpath, boolean fast) {
             String name = vpath + newfile;
             char[][] tokenizedName = MatchPattern.tokenizePathToCharArray(name, File.separator);
             File file = new File(dir, newfile);
-            if (file.isDirectory()) {
+            if (status.isDirectory(file)) {
 
                 if (isIncluded(name, tokenizedName)) {
                     if (!isExcluded(name, tokenizedName)) {
@@ -433,7 +436,7 @@ protected void scandir(File dir, String vpath, boolean fast) {
                 if (!fast) {
                     scandir(file, name + File.separator, fast);
                 }
-            } else if (file.isFile()) {
+            } else if (status.isFile(file)) {
                 if (isIncluded(name, tokenizedName)) {
                     if (!isExcluded(name, tokenizedName)) {
                         if (isSelected(name, file)) {
@@ -75,6 +75,8 @@
  */
 public class Expand {
 
+    private static final int BUFFER_SIZE = 65536;
+
     private File dest; // req
 
     private File source; // req
@@ -138,13 +140,8 @@ protected void extractFile(
             if (isDirectory) {
                 f.mkdirs();
             } else {
-                byte[] buffer = new byte[65536];
-
                 try (OutputStream fos = Files.newOutputStream(f.toPath())) {
-                    for (int length = compressedInputStream.read(buffer);
-                            length >= 0;
-                            fos.write(buffer, 0, length), length = compressedInputStream.read(buffer))
-                        ;
+                    IOUtil.copy(compressedInputStream, fos, BUFFER_SIZE);
                 }
             }
 
@@ -0,0 +1,169 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>The files of a directory tree grouped by extension.</p>
+ *
+ * <p>The tree is walked once when the index is created, then any number of extension lookups can be made without
+ * touching the file system again. The walk follows the rules of {@link FileUtils#getFilesFromExtension(String,
+ * String[])}: <code>CVS</code> directories are skipped, files are reported with their absolute path and files without
+ * extension are indexed under the empty extension <code>""</code>.</p>
+ *
+ * <p>Within an extension, the files of a directory come before the files of its sub directories. The index is
+ * immutable and can be shared between threads.</p>
+ *
+ * @see FileUtils#extension(String)
+ */
+public final class FileExtensionIndex {
+    private final Map<String, List<String>> files;
+
+    private FileExtensionIndex(Map<String, List<String>> files) {
+        for (Map.Entry<String, List<String>> entry : files.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.files = Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Indexes the files of a directory tree.
+     *
+     * @param directory the root of the tree, a missing directory results in an empty index
+     * @return the index
+     */
+    public static FileExtensionIndex scan(File directory) {
+        return scan(directory, false);
+    }
+
+    /**
+     * Indexes the files of a directory tree.
+     *
+     * @param directory the root of the tree, a missing directory results in an empty index
+     * @param parallel <code>true</code> to walk sub directories concurrently in the common fork/join pool
+     * @return the index
+     */
+    public static FileExtensionIndex scan(File directory, boolean parallel) {
+        IndexTask task = new IndexTask(directory.getAbsoluteFile(), parallel);
+        return new FileExtensionIndex(parallel ? ForkJoinPool.commonPool().invoke(task) : task.compute());
+    }
+
+    /**
+     * @return the extensions of the indexed files, without leading dot
+     */
+    public Set<String> getExtensions() {
+        return files.keySet();
+    }
+
+    /**
+     * @param extension an extension like "java", not ".java"
+     * @return the absolute paths of the files with the given extension, never <code>null</code>
+     */
+    public List<String> getFiles(String extension) {
+        List<String> result = files.get(extension);
+        return result != null ? result : Collections.<String>emptyList();
+    }
+
+    /**
+     * @param extensions extensions like "java", not ".java"
+     * @return the absolute paths of the files with any of the given extensions, grouped in the order of the extensions
+     */
+    public String[] getFilesFromExtension(String... extensions) {
+        List<String> result = new ArrayList<>();
+        for (String extension : new LinkedHashSet<>(Arrays.asList(extensions))) {
+            result.addAll(getFiles(extension));
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * @return the absolute paths of the indexed files keyed by extension
+     */
+    public Map<String, List<String>> asMap() {
+        return files;
+    }
+
+    private static class IndexTask extends RecursiveTask<Map<String, List<String>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final File directory;
+
+        private final boolean parallel;
+
+        IndexTask(File directory, boolean parallel) {
+            this.directory = directory;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected Map<String, List<String>> compute() {
+            Map<String, List<String>> result = new HashMap<>();
+
+            File[] entries = directory.listFiles();
+            if (entries == null) {
+                return result;
+            }
+
+            List<IndexTask> subdirectories = new ArrayList<>();
+            for (File entry : entries) {
+                if (entry.isDirectory()) {
+                    // ignore all CVS directories...
+                    if (!entry.getName().equals("CVS")) {
+                        subdirectories.add(new IndexTask(entry, parallel));
+                    }
+                } else {
+                    String path = entry.getPath();
+                    String extension = FileUtils.extension(path);
+                    List<String> list = result.get(extension);
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        result.put(extension, list);
+                    }
+                    list.add(path);
+                }
+            }
+
+            if (parallel) {
+                ForkJoinTask.invokeAll(subdirectories);
+            }
+            for (IndexTask subdirectory : subdirectories) {
+                Map<String, List<String>> files = parallel ? subdirectory.join() : subdirectory.compute();
+                for (Map.Entry<String, List<String>> entry : files.entrySet()) {
+                    List<String> list = result.get(entry.getKey());
+                    if (list == null) {
+                        result.put(entry.getKey(), entry.getValue());
+                    } else {
+                        list.addAll(entry.getValue());
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
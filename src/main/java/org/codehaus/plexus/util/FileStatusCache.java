@@ -0,0 +1,266 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * <p>Memoizes file attributes for the duration of an operation or batch.</p>
+ *
+ * <p>Bulk operations like {@link FileUtils#copyDirectoryStructureIfModified(File, File)} ask for the existence, type,
+ * timestamp, length and canonical path of the same files over and over. While a cache is open on the current thread,
+ * {@link FileUtils}, {@link SelectorUtils#isOutOfDate(File, File, int)} and {@link DirectoryScanner} read these
+ * attributes once per file and reuse them:</p>
+ *
+ * <pre>
+ * try (FileStatusCache cache = FileStatusCache.open()) {
+ *     FileUtils.copyDirectoryStructureIfModified(source, target);
+ * }
+ * </pre>
+ *
+ * <p>Files written, created or deleted by these helpers are invalidated automatically. Changes made by anybody else
+ * while the cache is open are not seen, so keep the scope short or call {@link #invalidate(File)} or
+ * {@link #clear()}. A cache belongs to the thread which opened it and is not thread safe. Caches can be nested, closing
+ * one makes the enclosing cache current again.</p>
+ *
+ * <p>When no cache is open, {@link #current()} returns a pass-through instance that always asks the file system.</p>
+ */
+public final class FileStatusCache implements AutoCloseable {
+    private static final ThreadLocal<FileStatusCache> CURRENT = new ThreadLocal<>();
+
+    private static final FileStatusCache UNCACHED = new FileStatusCache(null, false);
+
+    private static final Status MISSING = new Status(false, false, false, 0L, 0L);
+
+    private final FileStatusCache previous;
+
+    private final boolean enabled;
+
+    private final Map<File, Status> statuses = new HashMap<>();
+
+    private final Map<File, File> canonicalFiles = new HashMap<>();
+
+    private boolean closed;
+
+    private FileStatusCache(FileStatusCache previous, boolean enabled) {
+        this.previous = previous;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Opens a cache and makes it the current one of this thread until it is closed.
+     *
+     * @return the new cache
+     */
+    public static FileStatusCache open() {
+        FileStatusCache cache = new FileStatusCache(CURRENT.get(), true);
+        CURRENT.set(cache);
+        return cache;
+    }
+
+    /**
+     * @return the cache opened by this thread, or a pass-through instance if none is open
+     */
+    public static FileStatusCache current() {
+        FileStatusCache cache = CURRENT.get();
+        return cache != null ? cache : UNCACHED;
+    }
+
+    /**
+     * @return <code>true</code> if attributes are memoized, <code>false</code> for the pass-through instance
+     */
+    public boolean isEnabled() {
+        return enabled && !closed;
+    }
+
+    /**
+     * @param file a file
+     * @return the cached equivalent of {@link File#exists()}
+     */
+    public boolean exists(File file) {
+        return isEnabled() ? status(file).exists : file.exists();
+    }
+
+    /**
+     * @param file a file
+     * @return the cached equivalent of {@link File#isDirectory()}
+     */
+    public boolean isDirectory(File file) {
+        return isEnabled() ? status(file).directory : file.isDirectory();
+    }
+
+    /**
+     * @param file a file
+     * @return the cached equivalent of {@link File#isFile()}
+     */
+    public boolean isFile(File file) {
+        return isEnabled() ? status(file).file : file.isFile();
+    }
+
+    /**
+     * @param file a file
+     * @return the cached equivalent of {@link File#lastModified()}
+     */
+    public long lastModified(File file) {
+        return isEnabled() ? status(file).lastModified : file.lastModified();
+    }
+
+    /**
+     * @param file a file
+     * @return the cached equivalent of {@link File#length()}
+     */
+    public long length(File file) {
+        return isEnabled() ? status(file).length : file.length();
+    }
+
+    /**
+     * @param file a file
+     * @return the cached equivalent of {@link File#getCanonicalFile()}
+     * @throws IOException if the canonical path cannot be resolved
+     */
+    public File getCanonicalFile(File file) throws IOException {
+        if (!isEnabled()) {
+            return file.getCanonicalFile();
+        }
+        File key = file.getAbsoluteFile();
+        File canonicalFile = canonicalFiles.get(key);
+        if (canonicalFile == null) {
+            canonicalFile = file.getCanonicalFile();
+            canonicalFiles.put(key, canonicalFile);
+        }
+        return canonicalFile;
+    }
+
+    /**
+     * Forgets the attributes of a file that changed, together with those of its parent directories whose timestamps
+     * change along.
+     *
+     * @param file a created, written or deleted file
+     */
+    public void invalidate(File file) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (File f = file.getAbsoluteFile(); f != null; f = f.getParentFile()) {
+            statuses.remove(f);
+            canonicalFiles.remove(f);
+        }
+    }
+
+    /**
+     * Forgets the attributes of a directory tree, for instance after it has been deleted, together with those of its
+     * parent directories.
+     *
+     * @param directory a changed directory
+     */
+    public void invalidateTree(File directory) {
+        if (!isEnabled()) {
+            return;
+        }
+        String prefix = directory.getAbsolutePath() + File.separator;
+        invalidateTree(statuses, prefix);
+        invalidateTree(canonicalFiles, prefix);
+        invalidate(directory);
+    }
+
+    private static void invalidateTree(Map<File, ?> map, String prefix) {
+        for (Iterator<File> it = map.keySet().iterator(); it.hasNext(); ) {
+            if (it.next().getPath().startsWith(prefix)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets all attributes.
+     */
+    public void clear() {
+        statuses.clear();
+        canonicalFiles.clear();
+    }
+
+    /**
+     * Clears the cache and makes the enclosing one current again.
+     */
+    @Override
+    public void close() {
+        if (!enabled || closed) {
+            return;
+        }
+        closed = true;
+        clear();
+        if (CURRENT.get() == this) {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private Status status(File file) {
+        File key = file.getAbsoluteFile();
+        Status status = statuses.get(key);
+        if (status == null) {
+            status = readStatus(key);
+            statuses.put(key, status);
+        }
+        return status;
+    }
+
+    private static Status readStatus(File file) {
+        try {
+            // a single stat instead of one per File method
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return new Status(
+                    true,
+                    attributes.isDirectory(),
+                    attributes.isRegularFile(),
+                    attributes.lastModifiedTime().toMillis(),
+                    attributes.size());
+        } catch (IOException | InvalidPathException e) {
+            return MISSING;
+        }
+    }
+
+    private static final class Status {
+        final boolean exists;
+
+        final boolean directory;
+
+        final boolean file;
+
+        final long lastModified;
+
+        final long length;
+
+        Status(boolean exists, boolean directory, boolean file, long lastModified, long length) {
+            this.exists = exists;
+            this.directory = directory;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
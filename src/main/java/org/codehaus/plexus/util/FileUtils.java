@@ -60,11 +60,20 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -73,9 +82,20 @@
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.util.io.CachingWriter;
 import org.codehaus.plexus.util.io.InputStreamFacade;
 import org.codehaus.plexus.util.io.URLInputStreamFacade;
 
@@ -143,6 +163,32 @@ public class FileUtils extends BaseFileUtils {
      */
     private static final String[] INVALID_CHARACTERS_FOR_WINDOWS_FILE_NAME = {":", "*", "?", "\"", "<", ">", "|"};
 
+    /**
+     * Size from which files are compared memory mapped.
+     */
+    private static final long MAPPED_COMPARE_THRESHOLD = ONE_MB;
+
+    /**
+     * Size of the file regions mapped at once when comparing files.
+     */
+    private static final long MAPPED_COMPARE_WINDOW = 64L * ONE_MB;
+
+    /**
+     * Maximum number of include/exclude combinations kept compiled by {@link #getFileAndDirectoryNames}.
+     */
+    private static final int SCAN_PATTERNS_CACHE_SIZE = 64;
+
+    /**
+     * Compiled include/exclude patterns keyed by the raw comma separated strings, least recently used evicted first.
+     */
+    private static final Map<List<String>, AbstractScanner.Patterns> SCAN_PATTERNS =
+            Collections.synchronizedMap(new LinkedHashMap<List<String>, AbstractScanner.Patterns>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<String>, AbstractScanner.Patterns> eldest) {
+                    return size() > SCAN_PATTERNS_CACHE_SIZE;
+                }
+            });
+
     /**
      * @return the default excludes pattern
      * @see DirectoryScanner#DEFAULTEXCLUDES
@@ -277,7 +323,7 @@ public static String extension(String filename) {
      */
     public static boolean fileExists(String fileName) {
         File file = new File(fileName);
-        return file.exists();
+        return FileStatusCache.current().exists(file);
     }
 
     /**
@@ -322,6 +368,259 @@ public static String fileRead(File file, String encoding) throws IOException {
         return fileRead(file.toPath(), encoding);
     }
 
+    /**
+     * Reads the lines of a file lazily: lines are read while the returned stream is consumed, so only the lines being
+     * processed are held in memory. The stream must be closed to release the file.
+     *
+     * @param path the file path
+     * @param charset the charset of the file
+     * @return the lines of the file
+     * @throws IOException if the file cannot be opened
+     * @see Files#lines(Path, Charset)
+     */
+    public static Stream<String> lines(Path path, Charset charset) throws IOException {
+        return Files.lines(path, charset);
+    }
+
+    /**
+     * Maps a file read-only into memory and returns its content as a character sequence. For ISO-8859-1 and US-ASCII
+     * the characters are read directly from the mapped bytes. For UTF-8 they are decoded in windows of a few thousand
+     * characters as they are read, after a first pass recording where each window starts, so only one window occupies
+     * the heap. Other charsets are decoded at once from the mapped bytes into a heap buffer as large as the content.
+     * <p>
+     * The mapping stays valid until the returned sequence is garbage collected, the file must not be modified or
+     * truncated in the meantime. Files larger than 2 GiB cannot be mapped, whatever the charset, use
+     * {@link #lines(Path, Charset)} instead.
+     * </p>
+     *
+     * @param path the file path
+     * @param charset the charset of the file
+     * @return the content of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static CharSequence mapFile(Path path, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File " + path + " is too large to be mapped: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (StandardCharsets.ISO_8859_1.equals(charset)) {
+                return new MappedCharSequence(buffer, 0, (int) size, false);
+            } else if (StandardCharsets.US_ASCII.equals(charset)) {
+                return new MappedCharSequence(buffer, 0, (int) size, true);
+            } else if (StandardCharsets.UTF_8.equals(charset)) {
+                // stateless, decoding can start again at any character boundary
+                DecodedContent content = new DecodedContent(buffer, charset);
+                return new DecodedCharSequence(content, 0, content.length);
+            } else {
+                return charset.decode(buffer);
+            }
+        }
+    }
+
+    /**
+     * Characters of a single byte charset read from a mapped file.
+     */
+    private static final class MappedCharSequence implements CharSequence {
+        private final ByteBuffer buffer;
+
+        private final int offset;
+
+        private final int length;
+
+        private final boolean ascii;
+
+        MappedCharSequence(ByteBuffer buffer, int offset, int length, boolean ascii) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+            this.ascii = ascii;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            byte b = buffer.get(offset + index);
+            // like the US-ASCII decoder, replace non ASCII bytes
+            return ascii && b < 0 ? '\uFFFD' : (char) (b & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new MappedCharSequence(buffer, offset + start, end - start, ascii);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            ((Buffer) source).position(offset);
+            source.get(bytes);
+            return new String(bytes, ascii ? StandardCharsets.US_ASCII : StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Characters decoded from a mapped file in windows, the last window read is cached.
+     */
+    private static final class DecodedContent {
+        private static final int WINDOW_SIZE = 16 * 1024;
+
+        private final ByteBuffer buffer;
+
+        private final Charset charset;
+
+        /**
+         * Index of the first character of each window, followed by the number of characters.
+         */
+        private final int[] windowChars;
+
+        /**
+         * Position of the first byte of each window, followed by the number of bytes.
+         */
+        private final int[] windowBytes;
+
+        private final int length;
+
+        private volatile Window window;
+
+        DecodedContent(ByteBuffer buffer, Charset charset) {
+            this.buffer = buffer;
+            this.charset = charset;
+            ByteBuffer in = buffer.duplicate();
+            CharBuffer out = CharBuffer.allocate(WINDOW_SIZE);
+            CharsetDecoder decoder = newDecoder();
+            int[] chars = new int[16];
+            int[] bytes = new int[16];
+            int windows = 0;
+            long total = 0;
+            CoderResult result;
+            do {
+                int position = in.position();
+                ((Buffer) out).clear();
+                result = decoder.decode(in, out, true);
+                if (out.position() > 0) {
+                    if (windows + 1 == chars.length) {
+                        chars = Arrays.copyOf(chars, chars.length * 2);
+                        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                    }
+                    chars[windows] = (int) total;
+                    bytes[windows] = position;
+                    windows++;
+                    total += out.position();
+                }
+            } while (result.isOverflow());
+            chars[windows] = (int) total;
+            bytes[windows] = in.position();
+            this.windowChars = Arrays.copyOf(chars, windows + 1);
+            this.windowBytes = Arrays.copyOf(bytes, windows + 1);
+            this.length = (int) total;
+        }
+
+        private CharsetDecoder newDecoder() {
+            // like Charset.decode
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        char charAt(int index) {
+            Window window = this.window;
+            if (window == null || index < window.start || index >= window.start + window.chars.length) {
+                window = decode(index);
+                this.window = window;
+            }
+            return window.chars[index - window.start];
+        }
+
+        /**
+         * @return the window holding the character
+         */
+        private Window decode(int index) {
+            int i = Arrays.binarySearch(windowChars, 0, windowChars.length - 1, index);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            ByteBuffer in = buffer.duplicate();
+            ((Buffer) in).limit(windowBytes[i + 1]);
+            ((Buffer) in).position(windowBytes[i]);
+            CharBuffer out = CharBuffer.allocate(windowChars[i + 1] - windowChars[i]);
+            CharsetDecoder decoder = newDecoder();
+            decoder.decode(in, out, true);
+            decoder.flush(out);
+            return new Window(windowChars[i], out.array());
+        }
+
+        private static final class Window {
+            private final int start;
+
+            private final char[] chars;
+
+            Window(int start, char[] chars) {
+                this.start = start;
+                this.chars = chars;
+            }
+        }
+    }
+
+    /**
+     * Part of the characters decoded from a mapped file.
+     */
+    private static final class DecodedCharSequence implements CharSequence {
+        private final DecodedContent content;
+
+        private final int offset;
+
+        private final int length;
+
+        DecodedCharSequence(DecodedContent content, int offset, int length) {
+            this.content = content;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return content.charAt(offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new DecodedCharSequence(content, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                sb.append(content.charAt(offset + i));
+            }
+            return sb.toString();
+        }
+    }
+
     /**
      * Appends data to a file. The file will be created if it does not exist. Note: the data is written with platform
      * encoding
@@ -352,6 +651,7 @@ public static void fileAppend(String fileName, String encoding, String data) thr
 
     private static void fileAppend(Path path, String encoding, String data) throws IOException {
         fileWrite(path, encoding, data, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+        FileStatusCache.current().invalidate(path.toFile());
     }
 
     /**
@@ -377,6 +677,7 @@ public static void fileWrite(String fileName, String data) throws IOException {
     public static void fileWrite(String fileName, String encoding, String data) throws IOException {
         Path file = (fileName == null) ? null : Paths.get(fileName);
         fileWrite(file, encoding, data);
+        FileStatusCache.current().invalidate(file.toFile());
     }
 
     /**
@@ -403,6 +704,41 @@ public static void fileWrite(File file, String data) throws IOException {
      */
     public static void fileWrite(File file, String encoding, String data) throws IOException {
         fileWrite(file.toPath(), encoding, data);
+        FileStatusCache.current().invalidate(file);
+    }
+
+    /**
+     * Writes data to a file only if its content differs from the data. The file will be created if it does not exist.
+     * An unchanged file is not rewritten, so it keeps its last modification time.
+     *
+     * @param fileName The path of the file to write.
+     * @param encoding The encoding of the file, <code>null</code> for the platform encoding.
+     * @param data The content to write to the file.
+     * @return <code>true</code> if the file was created or its content changed
+     * @throws IOException if any
+     */
+    public static boolean fileWriteIfChanged(String fileName, String encoding, String data) throws IOException {
+        return fileWriteIfChanged(new File(fileName), encoding, data);
+    }
+
+    /**
+     * Writes data to a file only if its content differs from the data. The file will be created if it does not exist.
+     * An unchanged file is not rewritten, so it keeps its last modification time.
+     *
+     * @param file The file to write.
+     * @param encoding The encoding of the file, <code>null</code> for the platform encoding.
+     * @param data The content to write to the file.
+     * @return <code>true</code> if the file was created or its content changed
+     * @throws IOException if any
+     */
+    public static boolean fileWriteIfChanged(File file, String encoding, String data) throws IOException {
+        FileStatusCache status = FileStatusCache.current();
+        boolean created = !status.exists(file);
+        boolean modified = BaseFileUtils.fileWriteIfChanged(file.toPath(), encoding, data) || created;
+        if (modified) {
+            status.invalidate(file);
+        }
+        return modified;
     }
 
     /**
@@ -417,6 +753,7 @@ public static void fileDelete(String fileName) {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        FileStatusCache.current().invalidate(file);
     }
 
     /**
@@ -476,10 +813,9 @@ public static File getFile(String fileName) {
      * @param directory The path of the directory.
      * @param extensions an array of expected extensions.
      * @return An array of files for the wanted extensions.
+     * @see FileExtensionIndex to look up several sets of extensions in the same directory
      */
     public static String[] getFilesFromExtension(String directory, String[] extensions) {
-        List<String> files = new ArrayList<String>();
-
         File currentDir = new File(directory);
 
         String[] unknownFiles = currentDir.list();
@@ -488,9 +824,18 @@ public static String[] getFilesFromExtension(String directory, String[] extensio
             return new String[0];
         }
 
+        List<String> files = new ArrayList<String>();
+        addFilesFromExtension(currentDir, unknownFiles, new HashSet<String>(Arrays.asList(extensions)), files);
+        return files.toArray(new String[0]);
+    }
+
+    /**
+     * Private helper method for getFilesFromExtension()
+     */
+    private static void addFilesFromExtension(
+            File directory, String[] unknownFiles, Set<String> extensions, List<String> files) {
         for (String unknownFile : unknownFiles) {
-            String currentFileName = directory + System.getProperty("file.separator") + unknownFile;
-            File currentFile = new File(currentFileName);
+            File currentFile = new File(directory, unknownFile);
 
             if (currentFile.isDirectory()) {
                 // ignore all CVS directories...
@@ -498,56 +843,18 @@ public static String[] getFilesFromExtension(String directory, String[] extensio
                     continue;
                 }
 
-                // ok... transverse into this directory and get all the files... then combine
-                // them with the current list.
-
-                String[] fetchFiles = getFilesFromExtension(currentFileName, extensions);
-                files = blendFilesToVector(files, fetchFiles);
+                String[] children = currentFile.list();
+                if (children != null) {
+                    addFilesFromExtension(currentFile, children, extensions, files);
+                }
             } else {
-                // ok... add the file
-
+                // Note that if the file does not have an extension, an empty string is matched for.
                 String add = currentFile.getAbsolutePath();
-                if (isValidFile(add, extensions)) {
+                if (extensions.contains(extension(add))) {
                     files.add(add);
                 }
             }
         }
-
-        // ok... move the Vector into the files list...
-        return files.toArray(new String[0]);
-    }
-
-    /**
-     * Private helper method for getFilesFromExtension()
-     */
-    private static List<String> blendFilesToVector(List<String> v, String[] files) {
-        for (String file : files) {
-            v.add(file);
-        }
-
-        return v;
-    }
-
-    /**
-     * Checks to see if a file is of a particular type(s). Note that if the file does not have an extension, an empty
-     * string (&quot;&quot;) is matched for.
-     */
-    private static boolean isValidFile(String file, String[] extensions) {
-        String extension = extension(file);
-        if (extension == null) {
-            extension = "";
-        }
-
-        // ok.. now that we have the "extension" go through the current know
-        // excepted extensions and determine if this one is OK.
-
-        for (String extension1 : extensions) {
-            if (extension1.equals(extension)) {
-                return true;
-            }
-        }
-
-        return false;
     }
 
     /**
@@ -566,8 +873,10 @@ public static void mkdir(String dir) {
                     + StringUtils.join(INVALID_CHARACTERS_FOR_WINDOWS_FILE_NAME, " "));
         }
 
-        if (!file.exists()) {
+        FileStatusCache status = FileStatusCache.current();
+        if (!status.exists(file)) {
             file.mkdirs();
+            status.invalidate(file);
         }
     }
 
@@ -595,9 +904,39 @@ public static boolean contentEquals(final File file1, final File file2) throws I
             return false;
         }
 
-        try (InputStream input1 = Files.newInputStream(file1.toPath());
-                InputStream input2 = Files.newInputStream(file2.toPath())) {
-            return IOUtil.contentEquals(input1, input2);
+        if (file1.length() != file2.length()) {
+            return false;
+        }
+
+        return contentEquals(file1.toPath(), file2.toPath());
+    }
+
+    /**
+     * Compares the content of two regular files through their channels. Large files are compared memory mapped,
+     * window by window, small ones are read block by block. On Windows the files are always read, a mapped file
+     * cannot be deleted or truncated until the mapping is garbage collected.
+     */
+    static boolean channelContentEquals(Path path1, Path path2) throws IOException {
+        try (FileChannel channel1 = FileChannel.open(path1, StandardOpenOption.READ);
+                FileChannel channel2 = FileChannel.open(path2, StandardOpenOption.READ)) {
+            final long size = channel1.size();
+            if (size != channel2.size()) {
+                return false;
+            }
+
+            if (size < MAPPED_COMPARE_THRESHOLD || Os.isFamily(Os.FAMILY_WINDOWS)) {
+                return IOUtil.contentEquals(Channels.newInputStream(channel1), Channels.newInputStream(channel2));
+            }
+
+            for (long position = 0; position < size; position += MAPPED_COMPARE_WINDOW) {
+                final long length = Math.min(MAPPED_COMPARE_WINDOW, size - position);
+                final MappedByteBuffer buffer1 = channel1.map(FileChannel.MapMode.READ_ONLY, position, length);
+                final MappedByteBuffer buffer2 = channel2.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (!buffer1.equals(buffer2)) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
@@ -800,7 +1139,8 @@ public static void copyFileToDirectoryIfModified(final String source, final Stri
      *             be written to, or an IO error occurs during copying.
      */
     public static void copyFileToDirectory(final File source, final File destinationDirectory) throws IOException {
-        if (destinationDirectory.exists() && !destinationDirectory.isDirectory()) {
+        FileStatusCache status = FileStatusCache.current();
+        if (status.exists(destinationDirectory) && !status.isDirectory(destinationDirectory)) {
             throw new IllegalArgumentException("Destination is not a directory");
         }
 
@@ -821,7 +1161,8 @@ public static void copyFileToDirectory(final File source, final File destination
      */
     public static void copyFileToDirectoryIfModified(final File source, final File destinationDirectory)
             throws IOException {
-        if (destinationDirectory.exists() && !destinationDirectory.isDirectory()) {
+        FileStatusCache status = FileStatusCache.current();
+        if (status.exists(destinationDirectory) && !status.isDirectory(destinationDirectory)) {
             throw new IllegalArgumentException("Destination is not a directory");
         }
 
@@ -861,22 +1202,28 @@ public static void mkDirs(final File sourceBase, String[] dirs, final File desti
      *             {@link #copyFileToDirectory}).
      */
     public static void copyFile(final File source, final File destination) throws IOException {
+        FileStatusCache status = FileStatusCache.current();
+
         // check source exists
-        if (!source.exists()) {
+        if (!status.exists(source)) {
             final String message = "File " + source + " does not exist";
             throw new IOException(message);
         }
 
         // check source != destination, see PLXUTILS-10
-        if (source.getCanonicalPath().equals(destination.getCanonicalPath())) {
+        if (status.getCanonicalFile(source).getPath().equals(status.getCanonicalFile(destination).getPath())) {
             // if they are equal, we can exit the method without doing any work
             return;
         }
         mkdirsFor(destination);
 
-        doCopyFile(source, destination);
+        CopyMonitor.run(source, destination, () -> {
+            doCopyFile(source, destination);
+            status.invalidate(destination);
+            CopyMonitor.transferred(status.length(destination));
+        });
 
-        if (source.length() != destination.length()) {
+        if (status.length(source) != status.length(destination)) {
             String message = "Failed to copy full contents from " + source + " to " + destination;
             throw new IOException(message);
         }
@@ -916,6 +1263,7 @@ public static void linkFile(final File source, final File destination) throws IO
         mkdirsFor(destination);
 
         NioFiles.createSymbolicLink(destination, source);
+        FileStatusCache.current().invalidate(destination);
     }
 
     /**
@@ -954,7 +1302,9 @@ public static boolean copyFileIfModified(final File source, final File destinati
      *             </ul>
      */
     public static void copyURLToFile(final URL source, final File destination) throws IOException {
-        copyStreamToFile(new URLInputStreamFacade(source), destination);
+        CopyMonitor.run(source, destination, () -> {
+            copyStreamToFile(new URLInputStreamFacade(source), destination);
+        });
     }
 
     /**
@@ -975,15 +1325,18 @@ public static void copyStreamToFile(final InputStreamFacade source, final File d
         mkdirsFor(destination);
         checkCanWrite(destination);
 
-        try (InputStream input = source.getInputStream();
+        CopyMonitor.run(source, destination, () -> {
+            try (InputStream input = source.getInputStream();
                 OutputStream output = Files.newOutputStream(destination.toPath())) {
-            IOUtil.copy(input, output);
-        }
+                IOUtil.copy(input, output);
+            }
+        });
+        FileStatusCache.current().invalidate(destination);
     }
 
     private static void checkCanWrite(File destination) throws IOException {
         // make sure we can write to destination
-        if (destination.exists() && !destination.canWrite()) {
+        if (FileStatusCache.current().exists(destination) && !destination.canWrite()) {
             final String message = "Unable to open file " + destination + " for writing.";
             throw new IOException(message);
         }
@@ -992,8 +1345,10 @@ private static void checkCanWrite(File destination) throws IOException {
     private static void mkdirsFor(File destination) {
         // does destination directory exist ?
         File parentFile = destination.getParentFile();
-        if (parentFile != null && !parentFile.exists()) {
+        FileStatusCache status = FileStatusCache.current();
+        if (parentFile != null && !status.exists(parentFile)) {
             parentFile.mkdirs();
+            status.invalidate(parentFile);
         }
     }
 
@@ -1176,6 +1531,7 @@ public static void forceDelete(final File file) throws IOException {
         if (file.isDirectory()) {
             deleteDirectory(file);
         } else {
+            FileStatusCache.current().invalidate(file);
             /*
              * NOTE: Always try to delete the file even if it appears to be non-existent. This will ensure that a
              * symlink whose target does not exist is deleted, too.
@@ -1300,8 +1656,9 @@ public static void forceMkdir(final File file) throws IOException {
             }
         }
 
-        if (file.exists()) {
-            if (file.isFile()) {
+        FileStatusCache status = FileStatusCache.current();
+        if (status.exists(file)) {
+            if (status.isFile(file)) {
                 final String message =
                         "File " + file + " exists and is " + "not a directory. Unable to create directory.";
                 throw new IOException(message);
@@ -1311,6 +1668,7 @@ public static void forceMkdir(final File file) throws IOException {
                 final String message = "Unable to create directory " + file;
                 throw new IOException(message);
             }
+            status.invalidate(file);
         }
     }
 
@@ -1334,6 +1692,7 @@ public static void deleteDirectory(final File directory) throws IOException {
         if (!directory.exists()) {
             return;
         }
+        FileStatusCache.current().invalidateTree(directory);
 
         /*
          * try delete the directory before its contents, which will take care of any directories that are really
@@ -1568,13 +1927,7 @@ public static List<String> getFileAndDirectoryNames(
 
         scanner.setBasedir(directory);
 
-        if (includes != null) {
-            scanner.setIncludes(StringUtils.split(includes, ","));
-        }
-
-        if (excludes != null) {
-            scanner.setExcludes(StringUtils.split(excludes, ","));
-        }
+        scanner.setPatterns(getScanPatterns(includes, excludes));
 
         scanner.setCaseSensitive(isCaseSensitive);
 
@@ -1609,6 +1962,26 @@ public static List<String> getFileAndDirectoryNames(
         return list;
     }
 
+    private static AbstractScanner.Patterns getScanPatterns(String includes, String excludes) {
+        List<String> key = Arrays.asList(includes, excludes);
+        AbstractScanner.Patterns patterns = SCAN_PATTERNS.get(key);
+        if (patterns == null) {
+            DirectoryScanner scanner = new DirectoryScanner();
+
+            if (includes != null) {
+                scanner.setIncludes(StringUtils.split(includes, ","));
+            }
+
+            if (excludes != null) {
+                scanner.setExcludes(StringUtils.split(excludes, ","));
+            }
+
+            patterns = scanner.getPatterns();
+            SCAN_PATTERNS.put(key, patterns);
+        }
+        return patterns;
+    }
+
     /**
      * Copy a directory to an other one.
      *
@@ -1638,9 +2011,11 @@ public static void copyDirectory(File sourceDirectory, File destinationDirectory
 
         List<File> files = getFiles(sourceDirectory, includes, excludes);
 
-        for (File file : files) {
-            copyFileToDirectory(file, destinationDirectory);
-        }
+        CopyMonitor.run(sourceDirectory, destinationDirectory, () -> {
+            for (File file : files) {
+                copyFileToDirectory(file, destinationDirectory);
+            }
+        });
     }
 
     /**
@@ -1721,7 +2096,9 @@ public static void copyDirectoryLayout(
      * @throws IOException if any
      */
     public static void copyDirectoryStructure(File sourceDirectory, File destinationDirectory) throws IOException {
-        copyDirectoryStructure(sourceDirectory, destinationDirectory, destinationDirectory, false);
+        CopyMonitor.run(sourceDirectory, destinationDirectory, () -> {
+            copyDirectoryStructure(sourceDirectory, destinationDirectory, destinationDirectory, false, null);
+        });
     }
 
     /**
@@ -1739,11 +2116,158 @@ public static void copyDirectoryStructure(File sourceDirectory, File destination
      */
     public static void copyDirectoryStructureIfModified(File sourceDirectory, File destinationDirectory)
             throws IOException {
-        copyDirectoryStructure(sourceDirectory, destinationDirectory, destinationDirectory, true);
+        CopyMonitor.run(sourceDirectory, destinationDirectory, () -> {
+            copyDirectoryStructure(sourceDirectory, destinationDirectory, destinationDirectory, true, null);
+        });
+    }
+
+    /**
+     * Copies a file in the background, see {@link #copyFile(File, File)}.
+     *
+     * @param source an existing non-directory <code>File</code> to copy bytes from
+     * @param destination a non-directory <code>File</code> to write bytes to (possibly overwriting)
+     * @param executor runs the copy
+     * @return the outcome of the copy, cancelling it before the copy started prevents it
+     */
+    public static CompletableFuture<CopyResult> copyFileAsync(
+            final File source, final File destination, final Executor executor) {
+        final CompletableFuture<CopyResult> result = new CompletableFuture<>();
+        execute(executor, result, () -> {
+            if (result.isDone()) {
+                return;
+            }
+            final long start = System.nanoTime();
+            try {
+                copyFile(source, destination);
+                final long bytes = FileStatusCache.current().length(destination);
+                result.complete(
+                        new CopyResult(source, destination, new CopyStatistics(1, bytes, System.nanoTime() - start)));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * <p>Copies a directory structure in the background, see {@link #copyDirectoryStructure(File, File)}.</p>
+     *
+     * <p>The directories are created first, then the files are copied by up to <code>maxConcurrency</code> tasks
+     * running on the executor. Cancelling the returned future, or the failure of a file copy, stops the copy before the
+     * next file.</p>
+     *
+     * @param sourceDirectory the source dir
+     * @param destinationDirectory the target dir
+     * @param executor runs the copy
+     * @param maxConcurrency the maximum number of files copied at the same time
+     * @return the outcome of the copy, with the number of files copied and their total size
+     * @throws IllegalArgumentException if <code>maxConcurrency</code> is less than 1
+     */
+    public static CompletableFuture<CopyResult> copyDirectoryAsync(
+            final File sourceDirectory, final File destinationDirectory, final Executor executor, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1: " + maxConcurrency);
+        }
+        final CompletableFuture<CopyResult> result = new CompletableFuture<>();
+        execute(executor, result, () -> {
+            if (result.isDone()) {
+                return;
+            }
+            final List<File[]> copies = new ArrayList<>();
+            try {
+                copyDirectoryStructure(sourceDirectory, destinationDirectory, destinationDirectory, false, copies);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            new AsyncDirectoryCopy(sourceDirectory, destinationDirectory, copies, result)
+                    .start(executor, maxConcurrency);
+        });
+        return result;
+    }
+
+    private static void execute(Executor executor, CompletableFuture<?> result, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * The files of a directory copy, shared by the tasks copying them one after the other.
+     */
+    private static class AsyncDirectoryCopy implements Runnable {
+        private final File sourceDirectory;
+
+        private final File destinationDirectory;
+
+        private final List<File[]> copies;
+
+        private final CompletableFuture<CopyResult> result;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final AtomicInteger running = new AtomicInteger();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final long start = System.nanoTime();
+
+        AsyncDirectoryCopy(
+                File sourceDirectory,
+                File destinationDirectory,
+                List<File[]> copies,
+                CompletableFuture<CopyResult> result) {
+            this.sourceDirectory = sourceDirectory;
+            this.destinationDirectory = destinationDirectory;
+            this.copies = copies;
+            this.result = result;
+        }
+
+        void start(Executor executor, int maxConcurrency) {
+            int tasks = Math.max(1, Math.min(maxConcurrency, copies.size()));
+            running.set(tasks);
+            // the current task is one of them
+            for (int i = 1; i < tasks; i++) {
+                execute(executor, result, this);
+            }
+            run();
+        }
+
+        @Override
+        public void run() {
+            try {
+                int i;
+                while (!result.isDone() && (i = next.getAndIncrement()) < copies.size()) {
+                    File file = copies.get(i)[0];
+                    File directory = copies.get(i)[1];
+                    copyFileToDirectory(file, directory);
+                    bytes.addAndGet(FileStatusCache.current().length(new File(directory, file.getName())));
+                }
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+            if (running.decrementAndGet() == 0) {
+                int files = Math.min(next.get(), copies.size());
+                result.complete(new CopyResult(
+                        sourceDirectory,
+                        destinationDirectory,
+                        new CopyStatistics(files, bytes.get(), System.nanoTime() - start)));
+            }
+        }
     }
 
+    /**
+     * @param copies if not <code>null</code>, the files are not copied but added as <code>{file, destination
+     *            directory}</code> pairs, the directories are still created
+     */
     private static void copyDirectoryStructure(
-            File sourceDirectory, File destinationDirectory, File rootDestinationDirectory, boolean onlyModifiedFiles)
+            File sourceDirectory,
+            File destinationDirectory,
+            File rootDestinationDirectory,
+            boolean onlyModifiedFiles,
+            List<File[]> copies)
             throws IOException {
         if (sourceDirectory == null) {
             throw new IOException("source directory can't be null.");
@@ -1757,7 +2281,9 @@ private static void copyDirectoryStructure(
             throw new IOException("source and destination are the same directory.");
         }
 
-        if (!sourceDirectory.exists()) {
+        FileStatusCache status = FileStatusCache.current();
+
+        if (!status.exists(sourceDirectory)) {
             throw new IOException("Source directory doesn't exists (" + sourceDirectory.getAbsolutePath() + ").");
         }
 
@@ -1777,21 +2303,26 @@ private static void copyDirectoryStructure(
 
             File destination = new File(destinationDirectory, dest);
 
-            if (file.isFile()) {
+            if (status.isFile(file)) {
                 destination = destination.getParentFile();
 
-                if (onlyModifiedFiles) {
+                if (copies != null) {
+                    copies.add(new File[] {file, destination});
+                } else if (onlyModifiedFiles) {
                     copyFileToDirectoryIfModified(file, destination);
                 } else {
                     copyFileToDirectory(file, destination);
                 }
-            } else if (file.isDirectory()) {
-                if (!destination.exists() && !destination.mkdirs()) {
-                    throw new IOException(
-                            "Could not create destination directory '" + destination.getAbsolutePath() + "'.");
+            } else if (status.isDirectory(file)) {
+                if (!status.exists(destination)) {
+                    if (!destination.mkdirs()) {
+                        throw new IOException(
+                                "Could not create destination directory '" + destination.getAbsolutePath() + "'.");
+                    }
+                    status.invalidate(destination);
                 }
 
-                copyDirectoryStructure(file, destination, rootDestinationDirectory, onlyModifiedFiles);
+                copyDirectoryStructure(file, destination, rootDestinationDirectory, onlyModifiedFiles, copies);
             } else {
                 throw new IOException("Unknown file type: " + file.getAbsolutePath());
             }
@@ -1810,20 +2341,26 @@ private static void copyDirectoryStructure(
      *             already when this happens.
      */
     public static void rename(File from, File to) throws IOException {
-        if (to.exists() && !to.delete()) {
-            throw new IOException("Failed to delete " + to + " while trying to rename " + from);
-        }
+        try {
+            if (to.exists() && !to.delete()) {
+                throw new IOException("Failed to delete " + to + " while trying to rename " + from);
+            }
 
-        File parent = to.getParentFile();
-        if (parent != null && !parent.exists() && !parent.mkdirs()) {
-            throw new IOException("Failed to create directory " + parent + " while trying to rename " + from);
-        }
+            File parent = to.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Failed to create directory " + parent + " while trying to rename " + from);
+            }
 
-        if (!from.renameTo(to)) {
-            copyFile(from, to);
-            if (!from.delete()) {
-                throw new IOException("Failed to delete " + from + " while trying to rename it.");
+            if (!from.renameTo(to)) {
+                copyFile(from, to);
+                if (!from.delete()) {
+                    throw new IOException("Failed to delete " + from + " while trying to rename it.");
+                }
             }
+        } finally {
+            FileStatusCache status = FileStatusCache.current();
+            status.invalidate(from);
+            status.invalidate(to);
         }
     }
 
@@ -1881,6 +2418,201 @@ public abstract static class FilterWrapper {
         public abstract Reader getReader(Reader fileReader);
     }
 
+    /**
+     * A {@link FilterWrapper} working on blocks of characters instead of single characters. When used with
+     * {@link #copyFile(File, File, String, FilterWrapper[], boolean)} the content is streamed through
+     * {@link #filter(CharBuffer, Appendable, boolean)} one block at a time.
+     */
+    public abstract static class BufferFilterWrapper extends FilterWrapper {
+        /**
+         * Filters the characters remaining in <code>input</code> and appends the result to <code>output</code>.
+         * Characters which cannot be handled yet, like a token split across two blocks, may be left in
+         * <code>input</code>: they are offered again, followed by the next block. When <code>endOfInput</code> is
+         * <code>true</code> all remaining characters must be consumed.
+         *
+         * @param input the characters to filter, its position is advanced past the consumed characters
+         * @param output receives the filtered characters
+         * @param endOfInput <code>true</code> if no more input follows
+         * @throws IOException if filtering fails
+         */
+        public abstract void filter(CharBuffer input, Appendable output, boolean endOfInput) throws IOException;
+
+        @Override
+        public Reader getReader(Reader fileReader) {
+            return new BufferFilterReader(fileReader, this);
+        }
+    }
+
+    /**
+     * A {@link BufferFilterWrapper} replacing keywords enclosed between a begin and an end token with their values,
+     * using the same rules as {@link InterpolationFilterReader}.
+     */
+    public static class InterpolationFilterWrapper extends BufferFilterWrapper {
+        private final Map<?, Object> variables;
+
+        private final String beginToken;
+
+        private final String endToken;
+
+        /**
+         * @param variables name/value pairs to be interpolated
+         * @param beginToken an interpolation target begins with this
+         * @param endToken an interpolation target ends with this
+         */
+        public InterpolationFilterWrapper(Map<?, Object> variables, String beginToken, String endToken) {
+            this.variables = variables;
+            this.beginToken = beginToken;
+            this.endToken = endToken;
+        }
+
+        /**
+         * @param variables name/value pairs to be interpolated between the default tokens "${" and "}"
+         */
+        public InterpolationFilterWrapper(Map<String, Object> variables) {
+            this(variables, "${", "}");
+        }
+
+        @Override
+        public void filter(CharBuffer input, Appendable output, boolean endOfInput) throws IOException {
+            // indexes are absolute, the position of input is only moved once done
+            final int base = input.position();
+            final int limit = input.limit();
+            final char beginChar = beginToken.charAt(0);
+            final char endChar = endToken.charAt(0);
+            int pending = base;
+            int pos = base;
+            while (pos < limit) {
+                if (input.get(pos) != beginChar) {
+                    pos++;
+                    continue;
+                }
+
+                int keyStart = matchToken(input, pos, limit, beginToken);
+                if (keyStart < 0) {
+                    if (-keyStart > limit && !endOfInput) {
+                        break;
+                    }
+                    // not a begin token: pass through up to and including the mismatch
+                    pos = Math.min(-keyStart, limit);
+                    continue;
+                }
+
+                int keyEnd = keyStart;
+                while (keyEnd < limit && input.get(keyEnd) != endChar) {
+                    keyEnd++;
+                }
+                if (keyEnd == limit) {
+                    if (!endOfInput) {
+                        break;
+                    }
+                    pos = limit;
+                    continue;
+                }
+
+                int tokenEnd = matchToken(input, keyEnd, limit, endToken);
+                if (tokenEnd < 0) {
+                    if (-tokenEnd > limit && !endOfInput) {
+                        break;
+                    }
+                    pos = Math.min(-tokenEnd, limit);
+                    continue;
+                }
+
+                Object value = variables.get(input.subSequence(keyStart - base, keyEnd - base).toString());
+                if (value != null) {
+                    output.append(input, pending - base, pos - base);
+                    output.append(value.toString());
+                    pos = tokenEnd;
+                    pending = tokenEnd;
+                } else {
+                    // unknown keyword: keep the text and scan again from the end token on
+                    pos = keyEnd;
+                }
+            }
+
+            output.append(input, pending - base, pos - base);
+            ((Buffer) input).position(pos);
+        }
+
+        /**
+         * @return the index following <code>token</code> if it is found at <code>start</code>, otherwise the negated
+         *         index following the first mismatching character, which is beyond <code>limit</code> if more
+         *         input is needed to decide
+         */
+        private static int matchToken(CharBuffer input, int start, int limit, String token) {
+            int pos = start;
+            for (int i = 0; i < token.length(); i++, pos++) {
+                if (pos == limit) {
+                    return -(limit + 1);
+                }
+                if (input.get(pos) != token.charAt(i)) {
+                    return -(pos + 1);
+                }
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * Adapts a {@link BufferFilterWrapper} to the {@link Reader} based filter chain.
+     */
+    private static class BufferFilterReader extends Reader {
+        private final Reader in;
+
+        private final BufferFilterWrapper filter;
+
+        private final char[] block = new char[8 * ONE_KB];
+
+        private final StringBuilder input = new StringBuilder();
+
+        private final StringBuilder output = new StringBuilder();
+
+        private int outputIndex;
+
+        private boolean endOfInput;
+
+        BufferFilterReader(Reader in, BufferFilterWrapper filter) {
+            this.in = in;
+            this.filter = filter;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (outputIndex == output.length()) {
+                if (endOfInput) {
+                    return -1;
+                }
+                fill();
+            }
+            int n = Math.min(len, output.length() - outputIndex);
+            output.getChars(outputIndex, outputIndex + n, cbuf, off);
+            outputIndex += n;
+            return n;
+        }
+
+        private void fill() throws IOException {
+            output.setLength(0);
+            outputIndex = 0;
+            int n = in.read(block);
+            if (n < 0) {
+                endOfInput = true;
+            } else {
+                input.append(block, 0, n);
+            }
+            CharBuffer buffer = CharBuffer.wrap(input);
+            filter.filter(buffer, output, endOfInput);
+            input.delete(0, buffer.position());
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
     /**
      * <b>If wrappers is null or empty, the file will be copy only if {@code to.lastModified() < from.lastModified()}, if overwrite is true</b>
      *
@@ -1895,37 +2627,20 @@ public abstract static class FilterWrapper {
     public static void copyFile(File from, File to, String encoding, FilterWrapper[] wrappers, boolean overwrite)
             throws IOException {
         if (wrappers != null && wrappers.length > 0) {
-            // buffer so it isn't reading a byte at a time!
-            Reader fileReader = null;
-            Writer fileWriter = null;
-            try {
-                if (encoding == null || encoding.length() < 1) {
-                    fileReader = Files.newBufferedReader(from.toPath());
-                    fileWriter = Files.newBufferedWriter(to.toPath());
-                } else {
-                    OutputStream outstream = Files.newOutputStream(to.toPath());
-
-                    fileReader = Files.newBufferedReader(from.toPath(), Charset.forName(encoding));
-
-                    fileWriter = new OutputStreamWriter(outstream, encoding);
-                }
+            Charset charset =
+                    (encoding == null || encoding.length() < 1) ? StandardCharsets.UTF_8 : Charset.forName(encoding);
 
+            // the caching writer leaves the destination untouched if the filtered content did not change
+            try (Reader fileReader = Files.newBufferedReader(from.toPath(), charset);
+                    Writer fileWriter = new CachingWriter(to.toPath(), charset)) {
                 Reader reader = fileReader;
                 for (FilterWrapper wrapper : wrappers) {
                     reader = wrapper.getReader(reader);
                 }
 
                 IOUtil.copy(reader, fileWriter);
-                fileWriter.close();
-                fileWriter = null;
-                fileReader.close();
-                fileReader = null;
-            } finally {
-                //noinspection deprecation
-                IOUtil.close(fileReader);
-                //noinspection deprecation
-                IOUtil.close(fileWriter);
             }
+            FileStatusCache.current().invalidate(to);
         } else {
             if (isSourceNewerThanDestination(from, to) || overwrite) {
                 copyFile(from, to);
@@ -1934,8 +2649,11 @@ public static void copyFile(File from, File to, String encoding, FilterWrapper[]
     }
 
     private static boolean isSourceNewerThanDestination(File source, File destination) {
-        return (destination.lastModified() == 0L && source.lastModified() == 0L)
-                || destination.lastModified() < source.lastModified();
+        FileStatusCache status = FileStatusCache.current();
+        long sourceLastModified = status.lastModified(source);
+        long destinationLastModified = status.lastModified(destination);
+        return (destinationLastModified == 0L && sourceLastModified == 0L)
+                || destinationLastModified < sourceLastModified;
     }
 
     /**
@@ -58,6 +58,8 @@
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -67,7 +69,25 @@
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.codehaus.plexus.util.io.BufferPool;
 
 /**
  * General IO Stream manipulation.
@@ -135,6 +155,11 @@
 public final class IOUtil extends BaseIOUtil {
     private static final int DEFAULT_BUFFER_SIZE = 1024 * 16;
 
+    /**
+     * Largest array size the VMs reliably allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -145,13 +170,25 @@ private IOUtil() {}
     ///////////////////////////////////////////////////////////////
 
     /**
-     * Copy bytes from an <code>InputStream</code> to an <code>OutputStream</code>.
+     * Copy bytes from an <code>InputStream</code> to an <code>OutputStream</code>. Between a
+     * <code>FileInputStream</code> and a <code>FileOutputStream</code> the bytes are transferred by the file channels,
+     * without copying them through the Java heap.
      * @param input to convert
      * @param output the result
      * @throws IOException io issue
      */
     public static void copy(final InputStream input, final OutputStream output) throws IOException {
-        BaseIOUtil.copy(input, output);
+        CopyMonitor.run(input, output, () -> {
+            // only plain file streams, subclasses may filter what they read or write
+            if (input.getClass() == FileInputStream.class && output.getClass() == FileOutputStream.class) {
+                copy(((FileInputStream) input).getChannel(), ((FileOutputStream) output).getChannel());
+            } else if (CopyMonitor.progressInterval() != Long.MAX_VALUE) {
+                // the progress of transferTo cannot be observed
+                copy(input, output, DEFAULT_BUFFER_SIZE);
+            } else {
+                BaseIOUtil.copy(input, output);
+            }
+        });
     }
 
     /**
@@ -163,11 +200,18 @@ public static void copy(final InputStream input, final OutputStream output) thro
      */
     public static void copy(final InputStream input, final OutputStream output, final int bufferSize)
             throws IOException {
-        final byte[] buffer = new byte[bufferSize];
-        int n = 0;
-        while (0 <= (n = input.read(buffer))) {
-            output.write(buffer, 0, n);
-        }
+        CopyMonitor.run(input, output, () -> {
+            final byte[] buffer = BufferPool.acquireBytes(bufferSize);
+            try {
+                int n = 0;
+                while (0 <= (n = input.read(buffer, 0, bufferSize))) {
+                    output.write(buffer, 0, n);
+                    CopyMonitor.transferred(n);
+                }
+            } finally {
+                BufferPool.release(buffer);
+            }
+        });
     }
 
     /**
@@ -188,14 +232,95 @@ public static void copy(final Reader input, final Writer output) throws IOExcept
      * @throws IOException io issue
      */
     public static void copy(final Reader input, final Writer output, final int bufferSize) throws IOException {
-        final char[] buffer = new char[bufferSize];
-        int n = 0;
-        while (0 <= (n = input.read(buffer))) {
-            output.write(buffer, 0, n);
+        final char[] buffer = BufferPool.acquireChars(bufferSize);
+        try {
+            int n = 0;
+            while (0 <= (n = input.read(buffer, 0, bufferSize))) {
+                output.write(buffer, 0, n);
+            }
+        } finally {
+            BufferPool.release(buffer);
         }
         output.flush();
     }
 
+    /**
+     * Copy bytes from a <code>ReadableByteChannel</code> to a <code>WritableByteChannel</code>. A
+     * <code>FileChannel</code> input is transferred from its current position with
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which lets the operating system copy the bytes
+     * when the output is a file or socket. Other channels, and file channels of pipes or terminals, are copied through
+     * a direct buffer.
+     * @param input to copy from, read from its current position to its end
+     * @param output the result
+     * @throws IOException io issue
+     */
+    public static void copy(final ReadableByteChannel input, final WritableByteChannel output) throws IOException {
+        CopyMonitor.run(input, output, () -> {
+            final long remaining = input instanceof FileChannel ? remaining((FileChannel) input) : -1;
+            if (remaining > 0) {
+                final FileChannel channel = (FileChannel) input;
+                final long chunk = CopyMonitor.progressInterval();
+                long position = channel.position();
+                final long size = position + remaining;
+                long n;
+                while (position < size
+                        && 0 < (n = channel.transferTo(position, Math.min(size - position, chunk), output))) {
+                    position += n;
+                    CopyMonitor.transferred(n);
+                }
+                // transferTo does not move the channel, any content appended meanwhile is read below
+                channel.position(position);
+            }
+
+            final ByteBuffer buffer = BufferPool.acquireDirect(DEFAULT_BUFFER_SIZE);
+            try {
+                while (0 <= input.read(buffer)) {
+                    ((Buffer) buffer).flip();
+                    final int n = buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        output.write(buffer);
+                    }
+                    ((Buffer) buffer).clear();
+                    CopyMonitor.transferred(n);
+                }
+            } finally {
+                BufferPool.release(buffer);
+            }
+        });
+    }
+
+    /**
+     * @return the number of bytes from the position of the channel to the end of its file, -1 if the channel cannot
+     *         seek, as the channel of a pipe, a FIFO or a terminal
+     */
+    private static long remaining(final FileChannel channel) {
+        try {
+            return channel.size() - channel.position();
+        } catch (IOException e) {
+            // Illegal seek
+            return -1;
+        }
+    }
+
+    /**
+     * Copy the content of a file to an <code>OutputStream</code>. A <code>FileOutputStream</code> output receives the
+     * bytes directly from the file channel.
+     * @param input the file to copy
+     * @param output the result
+     * @throws IOException io issue
+     * @see #copy(ReadableByteChannel, WritableByteChannel)
+     */
+    public static void copy(final Path input, final OutputStream output) throws IOException {
+        CopyMonitor.run(input, output, () -> {
+            try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+                final WritableByteChannel target = output.getClass() == FileOutputStream.class
+                        ? ((FileOutputStream) output).getChannel()
+                        : Channels.newChannel(output);
+                copy(channel, target);
+            }
+        });
+    }
+
     ///////////////////////////////////////////////////////////////
     // Derived copy methods
     // InputStream -> *
@@ -281,6 +406,10 @@ public static String toString(final InputStream input) throws IOException {
      * @throws IOException io issue
      */
     public static String toString(final InputStream input, final int bufferSize) throws IOException {
+        final Charset charset = Charset.defaultCharset();
+        if (isDirectlyDecodable(charset)) {
+            return new String(readAllBytes(input, bufferSize), charset);
+        }
         final StringWriter sw = new StringWriter();
         copy(input, sw, bufferSize);
         return sw.toString();
@@ -309,11 +438,138 @@ public static String toString(final InputStream input, final String encoding) th
      */
     public static String toString(final InputStream input, final String encoding, final int bufferSize)
             throws IOException {
+        final Charset charset = toDirectlyDecodableCharset(encoding);
+        if (charset != null) {
+            return new String(readAllBytes(input, bufferSize), charset);
+        }
         final StringWriter sw = new StringWriter();
         copy(input, sw, encoding, bufferSize);
         return sw.toString();
     }
 
+    ///////////////////////////////////////////////////////////////
+    // InputStream -> OutputStream (transcoding)
+
+    /**
+     * Copy bytes from an <code>InputStream</code> to an <code>OutputStream</code>, converting them from one charset to
+     * another. Malformed input and characters the output charset cannot represent are replaced, like
+     * <code>InputStreamReader</code> and <code>OutputStreamWriter</code> do.
+     * <p>
+     * When both charsets encode ASCII as single bytes (US-ASCII, UTF-8, the ISO-8859 and windows-125x families), the
+     * leading ASCII part of the input is copied as is, without decoding it. Everything after the first non ASCII byte
+     * is decoded and encoded through reused buffers.
+     * @param input the bytes to convert
+     * @param inputCharset the charset of the input
+     * @param output the result
+     * @param outputCharset the charset of the output
+     * @throws IOException io issue
+     */
+    public static void transcode(
+            final InputStream input, final Charset inputCharset, final OutputStream output, final Charset outputCharset)
+            throws IOException {
+        final byte[] inputBytes = BufferPool.acquireBytes(DEFAULT_BUFFER_SIZE);
+        final byte[] outputBytes = BufferPool.acquireBytes(DEFAULT_BUFFER_SIZE);
+        final char[] chars = BufferPool.acquireChars(DEFAULT_BUFFER_SIZE);
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(inputBytes);
+            ((Buffer) in).limit(0);
+
+            if (isAsciiCompatible(inputCharset) && isAsciiCompatible(outputCharset)) {
+                int n;
+                while (0 <= (n = input.read(inputBytes))) {
+                    int ascii = 0;
+                    while (ascii < n && inputBytes[ascii] >= 0) {
+                        ascii++;
+                    }
+                    output.write(inputBytes, 0, ascii);
+                    if (ascii < n) {
+                        // the rest is decoded
+                        ((Buffer) in).limit(n);
+                        ((Buffer) in).position(ascii);
+                        break;
+                    }
+                }
+            }
+
+            final CharsetDecoder decoder = inputCharset
+                    .newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            final CharsetEncoder encoder = outputCharset
+                    .newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            final CharBuffer decoded = CharBuffer.wrap(chars);
+            final ByteBuffer out = ByteBuffer.wrap(outputBytes);
+
+            boolean endOfInput = false;
+            while (true) {
+                final CoderResult result = decoder.decode(in, decoded, endOfInput);
+                if (result.isUnderflow()) {
+                    if (endOfInput) {
+                        break;
+                    }
+                    in.compact();
+                    final int n = input.read(inputBytes, in.position(), in.remaining());
+                    if (n < 0) {
+                        endOfInput = true;
+                    } else {
+                        ((Buffer) in).position(in.position() + n);
+                    }
+                    ((Buffer) in).flip();
+                }
+                encode(encoder, decoded, out, output, false);
+            }
+            while (decoder.flush(decoded).isOverflow()) {
+                encode(encoder, decoded, out, output, false);
+            }
+            encode(encoder, decoded, out, output, true);
+            while (encoder.flush(out).isOverflow()) {
+                drain(out, output);
+            }
+            drain(out, output);
+        } finally {
+            BufferPool.release(inputBytes);
+            BufferPool.release(outputBytes);
+            BufferPool.release(chars);
+        }
+    }
+
+    /**
+     * Encodes the decoded characters, writing the output buffer whenever it is full. Characters which cannot be encoded
+     * yet, like a high surrogate without its low surrogate, are kept for the next call.
+     */
+    private static void encode(
+            final CharsetEncoder encoder,
+            final CharBuffer decoded,
+            final ByteBuffer out,
+            final OutputStream output,
+            final boolean endOfInput)
+            throws IOException {
+        ((Buffer) decoded).flip();
+        while (encoder.encode(decoded, out, endOfInput).isOverflow()) {
+            drain(out, output);
+        }
+        decoded.compact();
+    }
+
+    private static void drain(final ByteBuffer out, final OutputStream output) throws IOException {
+        output.write(out.array(), 0, out.position());
+        ((Buffer) out).clear();
+    }
+
+    /**
+     * @return <code>true</code> if the charset is known to encode every ASCII character as the same single byte, and to
+     *         use bytes below 0x80 for nothing else
+     */
+    private static boolean isAsciiCompatible(final Charset charset) {
+        final String name = charset.name();
+        return StandardCharsets.US_ASCII.equals(charset)
+                || StandardCharsets.UTF_8.equals(charset)
+                || name.startsWith("ISO-8859-")
+                || name.startsWith("windows-125");
+    }
+
     ///////////////////////////////////////////////////////////////
     // InputStream -> byte[]
 
@@ -333,9 +589,63 @@ public static byte[] toByteArray(final InputStream input) throws IOException {
      * @throws IOException io issue
      */
     public static byte[] toByteArray(final InputStream input, final int bufferSize) throws IOException {
-        final ByteArrayOutputStream output = new ByteArrayOutputStream();
-        copy(input, output, bufferSize);
-        return output.toByteArray();
+        return readAllBytes(input, bufferSize);
+    }
+
+    /**
+     * Reads a stream to its end. The content of a file stream is read into an array of the remaining file size, other
+     * streams, and files of unknown size as pipes or <code>/proc</code> files, are read into a buffer that doubles
+     * whenever it is full.
+     */
+    private static byte[] readAllBytes(final InputStream input, final int bufferSize) throws IOException {
+        byte[] buffer = null;
+        if (input instanceof FileInputStream) {
+            final long remaining = remaining(((FileInputStream) input).getChannel());
+            if (remaining > 0 && remaining <= MAX_ARRAY_SIZE) {
+                buffer = new byte[(int) remaining];
+            }
+        }
+        if (buffer == null) {
+            buffer = new byte[Math.max(bufferSize, 1)];
+        }
+
+        int count = 0;
+        while (true) {
+            count += readFully(input, buffer, count);
+            if (count < buffer.length) {
+                break;
+            }
+            // the buffer is full, only grow it if the stream has more
+            final int next = input.read();
+            if (next < 0) {
+                break;
+            }
+            if (buffer.length >= MAX_ARRAY_SIZE) {
+                throw new IOException("Stream content exceeds the maximum array size");
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.min(2L * buffer.length + 1, MAX_ARRAY_SIZE));
+            buffer[count++] = (byte) next;
+        }
+        return count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * @return the charset of the encoding if bytes in this encoding can be decoded directly into a String, or
+     *         <code>null</code> if they have to be decoded through a Reader
+     */
+    private static Charset toDirectlyDecodableCharset(final String encoding) {
+        final Charset charset;
+        try {
+            charset = Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            // let InputStreamReader report the unsupported encoding
+            return null;
+        }
+        return isDirectlyDecodable(charset) ? charset : null;
+    }
+
+    private static boolean isDirectlyDecodable(final Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset);
     }
 
     ///////////////////////////////////////////////////////////////
@@ -622,6 +932,10 @@ public static String toString(final byte[] input, final String encoding) throws
      * @throws IOException io issue
      */
     public static String toString(final byte[] input, final String encoding, final int bufferSize) throws IOException {
+        final Charset charset = toDirectlyDecodableCharset(encoding);
+        if (charset != null) {
+            return new String(input, charset);
+        }
         final StringWriter sw = new StringWriter();
         copy(input, sw, encoding, bufferSize);
         return sw.toString();
@@ -660,24 +974,50 @@ public static void copy(final byte[] input, final OutputStream output, final int
      * @throws IOException io issue
      */
     public static boolean contentEquals(final InputStream input1, final InputStream input2) throws IOException {
-        final InputStream bufferedInput1 = new BufferedInputStream(input1);
-        final InputStream bufferedInput2 = new BufferedInputStream(input2);
-
-        int ch = bufferedInput1.read();
-        while (0 <= ch) {
-            final int ch2 = bufferedInput2.read();
-            if (ch != ch2) {
-                return false;
+        final byte[] buffer1 = BufferPool.acquireBytes(DEFAULT_BUFFER_SIZE);
+        final byte[] buffer2 = BufferPool.acquireBytes(DEFAULT_BUFFER_SIZE);
+        try {
+            while (true) {
+                final int n1 = readFully(input1, buffer1, 0, DEFAULT_BUFFER_SIZE);
+                final int n2 = readFully(input2, buffer2, 0, DEFAULT_BUFFER_SIZE);
+                if (n1 != n2 || !BaseIOUtil.contentEquals(buffer1, buffer2, n1)) {
+                    return false;
+                }
+                if (n1 < DEFAULT_BUFFER_SIZE) {
+                    // both streams are exhausted
+                    return true;
+                }
             }
-            ch = bufferedInput1.read();
+        } finally {
+            BufferPool.release(buffer1);
+            BufferPool.release(buffer2);
         }
+    }
+
+    /**
+     * Reads from the stream into the buffer, starting at the given offset, until the buffer is full or the end of the
+     * stream is reached.
+     *
+     * @return the number of bytes read
+     */
+    private static int readFully(final InputStream input, final byte[] buffer, final int offset) throws IOException {
+        return readFully(input, buffer, offset, buffer.length - offset);
+    }
 
-        final int ch2 = bufferedInput2.read();
-        if (0 <= ch2) {
-            return false;
-        } else {
-            return true;
+    /**
+     * Reads up to <code>length</code> bytes from the stream into the buffer, starting at the given offset, stopping
+     * early only at the end of the stream.
+     *
+     * @return the number of bytes read
+     */
+    private static int readFully(final InputStream input, final byte[] buffer, final int offset, final int length)
+            throws IOException {
+        int count = 0;
+        int n;
+        while (count < length && 0 <= (n = input.read(buffer, offset + count, length - count))) {
+            count += n;
         }
+        return count;
     }
 
     // ----------------------------------------------------------------------
@@ -679,13 +679,14 @@ private static String[] tokenizePathToString(String path, String separator) {
      * @return whether the target is out of date
      */
     public static boolean isOutOfDate(File src, File target, int granularity) {
-        if (!src.exists()) {
+        FileStatusCache status = FileStatusCache.current();
+        if (!status.exists(src)) {
             return false;
         }
-        if (!target.exists()) {
+        if (!status.exists(target)) {
             return true;
         }
-        if ((src.lastModified() - granularity) > target.lastModified()) {
+        if ((status.lastModified(src) - granularity) > status.lastModified(target)) {
             return true;
         }
         return false;
@@ -0,0 +1,322 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>A {@code StreamConsumer} handing the lines to another consumer from a separate task, so that a slow consumer does
+ * not stop the {@link StreamPumper} from reading the output of the process, which would then block on a full pipe.</p>
+ *
+ * <p>The lines wait in a bounded queue. When it is full, the {@link OverflowPolicy} decides whether the pumper waits,
+ * the oldest line is dropped, or the lines go to a temporary file until the consumer has caught up.</p>
+ *
+ * <pre>
+ * try (AsyncStreamConsumer out = new AsyncStreamConsumer(slowConsumer, 10000, OverflowPolicy.SPILL)) {
+ *     CommandLineUtils.executeCommandLine(cl, out, err);
+ * }
+ * </pre>
+ *
+ * <p>The consumer must be closed once the process is over: closing waits until all the lines have been consumed.
+ * Spilled lines are written one per line in UTF-8, they must not contain line terminators, which the lines read by
+ * {@link StreamPumper} never do.</p>
+ */
+public class AsyncStreamConsumer implements StreamConsumer, AutoCloseable {
+    /**
+     * What to do with a line when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the consumer has taken a line from the queue.
+         */
+        BLOCK,
+        /**
+         * Drop the oldest line of the queue.
+         */
+        DROP_OLDEST,
+        /**
+         * Write the lines to a temporary file until the consumer has read them back.
+         */
+        SPILL
+    }
+
+    private final StreamConsumer consumer;
+
+    private final int capacity;
+
+    private final OverflowPolicy policy;
+
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+
+    // a lock rather than a monitor, a virtual thread waiting on a monitor pins its carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    private Path spillFile;
+
+    private Writer spillWriter;
+
+    private BufferedReader spillReader;
+
+    private long droppedLines;
+
+    private long spilledLines;
+
+    private boolean closed;
+
+    private boolean done;
+
+    private volatile Exception exception;
+
+    /**
+     * Creates a consumer dispatching the lines from a task of {@link CommandLineUtils#getStreamHandlerExecutor()}.
+     *
+     * @param consumer the consumer of the lines
+     * @param capacity the number of lines waiting to be consumed before the overflow policy applies
+     * @param policy what to do when the queue is full
+     */
+    public AsyncStreamConsumer(StreamConsumer consumer, int capacity, OverflowPolicy policy) {
+        this(consumer, capacity, policy, CommandLineUtils.getStreamHandlerExecutor());
+    }
+
+    /**
+     * @param consumer the consumer of the lines
+     * @param capacity the number of lines waiting to be consumed before the overflow policy applies
+     * @param policy what to do when the queue is full
+     * @param executor runs the task dispatching the lines
+     */
+    public AsyncStreamConsumer(StreamConsumer consumer, int capacity, OverflowPolicy policy, Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.consumer = Objects.requireNonNull(consumer);
+        this.capacity = capacity;
+        this.policy = Objects.requireNonNull(policy);
+        executor.execute(this::dispatch);
+    }
+
+    @Override
+    public void consumeLine(String line) throws IOException {
+        lock.lock();
+        try {
+            if (closed || done) {
+                throw new IOException("Consumer closed.", exception);
+            }
+            if (spillWriter != null) {
+                spill(line);
+                return;
+            }
+            if (queue.size() >= capacity) {
+                switch (policy) {
+                    case BLOCK:
+                        try {
+                            while (queue.size() >= capacity && !done) {
+                                changed.await();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting for the consumer.");
+                        }
+                        break;
+                    case DROP_OLDEST:
+                        queue.poll();
+                        droppedLines++;
+                        break;
+                    default:
+                        try {
+                            spillFile = Files.createTempFile("plexus-utils-lines", ".txt");
+                            spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+                            spillReader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8);
+                        } catch (IOException e) {
+                            // no half opened spill, the lines keep going to the queue
+                            closeSpill();
+                            throw e;
+                        }
+                        spill(line);
+                        return;
+                }
+            }
+            queue.add(line);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void spill(String line) throws IOException {
+        spillWriter.write(line);
+        spillWriter.write('\n');
+        spilledLines++;
+        changed.signalAll();
+    }
+
+    private void dispatch() {
+        try {
+            String line;
+            while ((line = take()) != null) {
+                try {
+                    if (exception == null) {
+                        consumer.consumeLine(line);
+                    }
+                } catch (Exception e) {
+                    exception = e;
+                }
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            exception = e;
+        } catch (Error e) {
+            // the remaining lines are lost, close() must fail
+            exception = new IOException("Dispatching the lines failed.", e);
+            throw e;
+        } finally {
+            lock.lock();
+            try {
+                closeSpill();
+                done = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits for the next line.
+     *
+     * @return the next line, <code>null</code> once closed and all the lines were taken
+     */
+    private String take() throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            String line = next();
+            while (line == null && !closed) {
+                changed.await();
+                line = next();
+            }
+            // room for a blocked pumper
+            changed.signalAll();
+            return line;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the next line, from the queue then from the spill file, <code>null</code> if there is none yet
+     */
+    private String next() throws IOException {
+        String line = queue.poll();
+        if (line == null && spillWriter != null) {
+            spillWriter.flush();
+            line = spillReader.readLine();
+            if (line == null) {
+                // caught up, the next lines go to the queue again
+                closeSpill();
+            }
+        }
+        return line;
+    }
+
+    private void closeSpill() {
+        if (spillFile != null) {
+            try {
+                if (spillWriter != null) {
+                    spillWriter.close();
+                }
+                if (spillReader != null) {
+                    spillReader.close();
+                }
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+            spillFile = null;
+            spillWriter = null;
+            spillReader = null;
+        }
+    }
+
+    /**
+     * Waits until all the lines have been consumed.
+     *
+     * @throws IOException if the consumer failed, or if interrupted while waiting
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+            while (!done) {
+                changed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the consumer.");
+        } finally {
+            lock.unlock();
+        }
+        if (exception != null) {
+            throw new IOException("Failure consuming lines.", exception);
+        }
+    }
+
+    /**
+     * @return the number of lines dropped with {@link OverflowPolicy#DROP_OLDEST}
+     */
+    public long getDroppedLines() {
+        lock.lock();
+        try {
+            return droppedLines;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of lines which went through a temporary file with {@link OverflowPolicy#SPILL}
+     */
+    public long getSpilledLines() {
+        lock.lock();
+        try {
+            return spilledLines;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the first failure of the consumer, <code>null</code> if none
+     */
+    public Exception getException() {
+        return exception;
+    }
+}
@@ -0,0 +1,60 @@
+package org.codehaus.plexus.util.cli;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation specific to Java SE 8 version.
+ */
+abstract class BaseCommandLineUtils {
+    /**
+     * @param name the prefix of the names of the threads
+     * @return a pool of daemon threads, created as needed and reused by the following processes
+     */
+    static Executor newExecutor(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), runnable -> {
+                    Thread thread = new Thread(runnable, name + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setContextClassLoader(null);
+                    return thread;
+                });
+    }
+
+    /**
+     * @return a future completed when the process exits, waited for by a task of the executor
+     */
+    static CompletableFuture<Process> onExit(final Process process, Executor executor) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try {
+                        process.waitFor();
+                        return process;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CompletionException(e);
+                    }
+                },
+                executor);
+    }
+
+    /**
+     * @return -1, the process id is not available before Java 9
+     */
+    static long pid(Process process) {
+        return -1;
+    }
+
+    /**
+     * @return -1, the CPU time of a process is not available before Java 9
+     */
+    static long cpuTimeNanos(Process process) {
+        return -1;
+    }
+}
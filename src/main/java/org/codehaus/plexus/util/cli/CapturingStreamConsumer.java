@@ -0,0 +1,206 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * <p>A {@code StreamConsumer} capturing the output of a process in a bounded amount of memory, unlike
+ * {@link CommandLineUtils.StringStreamConsumer}.</p>
+ *
+ * <p>The first lines are kept until they reach a number of characters, then only the last lines are kept, up to a
+ * number of lines and characters. Optionally, the whole output is also written to a temporary file once it no longer
+ * fits in memory.</p>
+ *
+ * <pre>
+ * try (CapturingStreamConsumer out = new CapturingStreamConsumer(64 * 1024, 100, true)) {
+ *     CommandLineUtils.executeCommandLine(cl, out, err);
+ *     ...
+ * }
+ * </pre>
+ */
+public class CapturingStreamConsumer implements StreamConsumer, AutoCloseable {
+    private final String ls = System.getProperty("line.separator");
+
+    private final int maxChars;
+
+    private final int maxTailLines;
+
+    private final boolean spill;
+
+    private final StringBuilder head = new StringBuilder();
+
+    private boolean headFull;
+
+    private final Deque<String> tail = new ArrayDeque<>();
+
+    private long tailChars;
+
+    private long lines;
+
+    private long omittedLines;
+
+    private Path spillFile;
+
+    private Writer spillWriter;
+
+    private IOException spillException;
+
+    /**
+     * @param maxChars the number of characters kept from the first lines, and from the last lines
+     * @param maxTailLines the number of last lines kept once the first lines are full
+     */
+    public CapturingStreamConsumer(int maxChars, int maxTailLines) {
+        this(maxChars, maxTailLines, false);
+    }
+
+    /**
+     * @param maxChars the number of characters kept from the first lines, and from the last lines
+     * @param maxTailLines the number of last lines kept once the first lines are full
+     * @param spill <code>true</code> to write the whole output to a temporary file, encoded in UTF-8, when it does not
+     *            fit in memory
+     */
+    public CapturingStreamConsumer(int maxChars, int maxTailLines, boolean spill) {
+        if (maxChars < 0 || maxTailLines < 0) {
+            throw new IllegalArgumentException("Limits must not be negative: " + maxChars + ", " + maxTailLines);
+        }
+        this.maxChars = maxChars;
+        this.maxTailLines = maxTailLines;
+        this.spill = spill;
+    }
+
+    @Override
+    public synchronized void consumeLine(String line) throws IOException {
+        lines++;
+        if (!headFull) {
+            if (head.length() + line.length() + ls.length() <= maxChars) {
+                head.append(line).append(ls);
+                return;
+            }
+            headFull = true;
+            if (spill) {
+                try {
+                    spillFile = Files.createTempFile("plexus-utils-output", ".log");
+                    spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+                    spillWriter.write(head.toString());
+                } catch (IOException e) {
+                    spillException = e;
+                    closeSpillWriter();
+                    throw e;
+                }
+            }
+        }
+        if (spillWriter != null) {
+            try {
+                spillWriter.write(line);
+                spillWriter.write(ls);
+            } catch (IOException e) {
+                spillException = e;
+                closeSpillWriter();
+                throw e;
+            }
+        }
+        tail.addLast(line);
+        tailChars += line.length();
+        while (!tail.isEmpty() && (tail.size() > maxTailLines || tailChars > maxChars)) {
+            tailChars -= tail.removeFirst().length();
+            omittedLines++;
+        }
+    }
+
+    /**
+     * @return the captured output: the first lines, a line telling how many lines were omitted if any, and the last
+     *         lines
+     */
+    public synchronized String getOutput() {
+        StringBuilder output = new StringBuilder(head);
+        if (omittedLines > 0) {
+            output.append("[... ").append(omittedLines).append(" lines omitted ...]").append(ls);
+        }
+        for (String line : tail) {
+            output.append(line).append(ls);
+        }
+        return output.toString();
+    }
+
+    /**
+     * @return the last lines kept once the first lines were full, empty if the whole output fits in memory
+     */
+    public synchronized List<String> getTail() {
+        return new ArrayList<>(tail);
+    }
+
+    /**
+     * @return the number of lines consumed
+     */
+    public synchronized long getLineCount() {
+        return lines;
+    }
+
+    /**
+     * @return whether some lines were not kept in memory
+     */
+    public synchronized boolean isTruncated() {
+        return omittedLines > 0;
+    }
+
+    /**
+     * @return the temporary file with the whole output, <code>null</code> if it fits in memory or spilling is disabled.
+     *         It is complete once the consumer is closed, and left for the caller to delete.
+     * @throws IOException if writing the file failed
+     */
+    public synchronized Path getSpillFile() throws IOException {
+        if (spillException != null) {
+            throw spillException;
+        }
+        return spillFile;
+    }
+
+    /**
+     * Completes the spill file, if any.
+     *
+     * @throws IOException if writing the file fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closeSpillWriter();
+        if (spillException != null) {
+            throw spillException;
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                if (spillException == null) {
+                    spillException = e;
+                }
+            }
+            spillWriter = null;
+        }
+    }
+}
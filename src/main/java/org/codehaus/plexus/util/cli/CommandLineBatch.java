@@ -0,0 +1,306 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>Runs many command lines with a maximum number of processes running at the same time.</p>
+ *
+ * <pre>
+ * CommandLineBatch batch = new CommandLineBatch(4);
+ * for (File source : sources) {
+ *     batch.add(formatterCommandline(source));
+ * }
+ * for (CommandLineBatch.Result result : batch.execute()) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>By default all the command lines are executed whatever their outcome. In fail fast mode, the first command line
+ * failing, with an exception or an exit code other than 0, stops the batch: the running processes are killed and the
+ * remaining command lines are not executed.</p>
+ *
+ * <p>The processes are executed with {@link CommandLineUtils#executeCommandLineAsyncWithInput(Commandline,
+ * StreamFeederFactory, StreamConsumer, StreamConsumer, long)}. The output of command lines added without consumers is
+ * captured and available from their result.</p>
+ */
+public class CommandLineBatch {
+    private final int maxParallelism;
+
+    private final List<Result> results = new ArrayList<>();
+
+    private boolean failFast;
+
+    private long timeoutInMillis;
+
+    /**
+     * @param maxParallelism the maximum number of processes running at the same time
+     */
+    public CommandLineBatch(int maxParallelism) {
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("maxParallelism must be at least 1: " + maxParallelism);
+        }
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * @param failFast <code>true</code> to stop at the first failing command line
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * @param timeoutInMillis Positive number to specify the timeout of each command line in milliseconds, zero and
+     *            negative numbers for no timeout.
+     */
+    public void setTimeoutInMillis(long timeoutInMillis) {
+        this.timeoutInMillis = timeoutInMillis;
+    }
+
+    public long getTimeoutInMillis() {
+        return timeoutInMillis;
+    }
+
+    /**
+     * Adds a command line whose output is captured.
+     *
+     * @param cl the command line to execute
+     * @return the result of the command line, filled by {@link #execute()}
+     */
+    public Result add(Commandline cl) {
+        return add(cl, null, null);
+    }
+
+    /**
+     * Adds a command line whose output is given to consumers.
+     *
+     * @param cl the command line to execute
+     * @param systemOut A consumer that receives output, must be thread safe, <code>null</code> to capture it
+     * @param systemErr A consumer that receives system error stream output, must be thread safe, <code>null</code> to
+     *            capture it
+     * @return the result of the command line, filled by {@link #execute()}
+     */
+    public Result add(Commandline cl, StreamConsumer systemOut, StreamConsumer systemErr) {
+        return add(cl, null, systemOut, systemErr);
+    }
+
+    /**
+     * Adds a command line with an input, whose output is given to consumers.
+     *
+     * @param cl the command line to execute
+     * @param systemIn Creates the feeder of the input of the process, <code>null</code> for no input
+     * @param systemOut A consumer that receives output, must be thread safe, <code>null</code> to capture it
+     * @param systemErr A consumer that receives system error stream output, must be thread safe, <code>null</code> to
+     *            capture it
+     * @return the result of the command line, filled by {@link #execute()}
+     */
+    public Result add(
+            Commandline cl, StreamFeederFactory systemIn, StreamConsumer systemOut, StreamConsumer systemErr) {
+        if (cl == null) {
+            throw new IllegalArgumentException("cl cannot be null.");
+        }
+        Result result = new Result(cl, systemIn, systemOut, systemErr);
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * Executes the command lines in the order they were added, waiting for all of them.
+     *
+     * @return the results, in the order the command lines were added
+     * @throws InterruptedException if the current thread is interrupted, the running processes are then killed
+     */
+    public List<Result> execute() throws InterruptedException {
+        final Semaphore permits = new Semaphore(maxParallelism);
+        final List<CompletableFuture<Integer>> running = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean failed = new AtomicBoolean();
+        try {
+            for (final Result result : results) {
+                permits.acquire();
+                if (failed.get()) {
+                    permits.release();
+                    break;
+                }
+                final long start = System.nanoTime();
+                CompletableFuture<Integer> future;
+                try {
+                    future = CommandLineUtils.executeCommandLineAsyncWithInput(
+                            result.commandline, result.systemIn, result.systemOut, result.systemErr, timeoutInMillis);
+                } catch (CommandLineException e) {
+                    result.finish(null, e, System.nanoTime() - start);
+                    if (failFast) {
+                        failed.set(true);
+                    }
+                    permits.release();
+                    continue;
+                }
+                running.add(future);
+                // a failure cancelling the running processes before this one was added
+                if (failed.get()) {
+                    future.cancel(false);
+                }
+                future.whenComplete((exitCode, failure) -> {
+                    result.finish(exitCode, failure, System.nanoTime() - start);
+                    // stop before the permit lets the next command line start
+                    if (failFast && !result.isSuccessful()) {
+                        failed.set(true);
+                        cancel(running);
+                    }
+                    permits.release();
+                });
+            }
+            permits.acquire(maxParallelism);
+            permits.release(maxParallelism);
+        } finally {
+            cancel(running);
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private static void cancel(List<CompletableFuture<Integer>> running) {
+        synchronized (running) {
+            for (CompletableFuture<Integer> future : running) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * The outcome of a command line of the batch.
+     */
+    public static final class Result {
+        private final Commandline commandline;
+
+        private final StreamFeederFactory systemIn;
+
+        private final StreamConsumer systemOut;
+
+        private final StreamConsumer systemErr;
+
+        private final CommandLineUtils.StringStreamConsumer capturedOut;
+
+        private final CommandLineUtils.StringStreamConsumer capturedErr;
+
+        private volatile boolean executed;
+
+        private volatile int exitCode = -1;
+
+        private volatile Throwable exception;
+
+        private volatile long durationNanos;
+
+        private Result(
+                Commandline commandline,
+                StreamFeederFactory systemIn,
+                StreamConsumer systemOut,
+                StreamConsumer systemErr) {
+            this.commandline = commandline;
+            this.systemIn = systemIn;
+            this.capturedOut = systemOut == null ? new CommandLineUtils.StringStreamConsumer() : null;
+            this.capturedErr = systemErr == null ? new CommandLineUtils.StringStreamConsumer() : null;
+            this.systemOut = systemOut != null ? systemOut : capturedOut;
+            this.systemErr = systemErr != null ? systemErr : capturedErr;
+        }
+
+        private void finish(Integer exitCode, Throwable failure, long durationNanos) {
+            if (failure instanceof CompletionException && failure.getCause() != null) {
+                failure = failure.getCause();
+            }
+            if (exitCode != null) {
+                this.exitCode = exitCode;
+            }
+            this.exception = failure;
+            this.durationNanos = durationNanos;
+            this.executed = true;
+        }
+
+        public Commandline getCommandline() {
+            return commandline;
+        }
+
+        /**
+         * @return <code>false</code> if the command line was not executed because the batch stopped before
+         */
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        /**
+         * @return whether the command line was executed without exception and exited with 0
+         */
+        public boolean isSuccessful() {
+            return executed && exception == null && exitCode == 0;
+        }
+
+        /**
+         * @return the exit code of the process, -1 if it did not exit normally
+         */
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * @return the failure of the command line, like a {@link CommandLineTimeOutException}, or a
+         *         <code>CancellationException</code> if it was killed because of another failure in fail fast mode
+         */
+        public Throwable getException() {
+            return exception;
+        }
+
+        /**
+         * @return the time from the start of the process to its end, in milliseconds
+         */
+        public long getDuration() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+
+        /**
+         * @return the captured output, <code>null</code> if it was given to a consumer
+         */
+        public String getOutput() {
+            return capturedOut != null ? capturedOut.getOutput() : null;
+        }
+
+        /**
+         * @return the captured error output, <code>null</code> if it was given to a consumer
+         */
+        public String getErrorOutput() {
+            return capturedErr != null ? capturedErr.getOutput() : null;
+        }
+
+        @Override
+        public String toString() {
+            if (!executed) {
+                return commandline + ": not run";
+            }
+            return commandline + ": " + (exception != null ? exception : "exit code " + exitCode);
+        }
+    }
+}
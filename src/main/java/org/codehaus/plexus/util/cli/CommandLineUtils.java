@@ -16,12 +16,21 @@
  * limitations under the License.
  */
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.StringUtils;
@@ -30,7 +39,7 @@
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l </a>
  *
  */
-public abstract class CommandLineUtils {
+public abstract class CommandLineUtils extends BaseCommandLineUtils {
 
     /**
      * A {@code StreamConsumer} providing consumed lines as a {@code String}.
@@ -53,15 +62,30 @@ public String getOutput() {
         }
     }
 
+    private static final Executor DEFAULT_STREAM_HANDLER_EXECUTOR = newExecutor("plexus-utils-stream-handler-");
+
+    private static volatile Executor streamHandlerExecutor = DEFAULT_STREAM_HANDLER_EXECUTOR;
+
     /**
-     * Number of milliseconds per second.
+     * Sets the executor running the {@link StreamFeeder} and {@link StreamPumper}s of the executed processes. It must
+     * run its tasks concurrently, up to three per running process, plus one per {@link AsyncStreamConsumer} created
+     * without an executor, otherwise processes may block on full pipes. Waiting for the processes executed
+     * asynchronously is done by other threads. By default, a pool of reused daemon threads: the handlers block in native
+     * reads of the pipes, which would pin the carriers of virtual threads.
+     *
+     * @param executor the executor, <code>null</code> for the default one
      */
-    private static final long MILLIS_PER_SECOND = 1000L;
+    public static void setStreamHandlerExecutor(Executor executor) {
+        streamHandlerExecutor = executor != null ? executor : DEFAULT_STREAM_HANDLER_EXECUTOR;
+    }
 
     /**
-     * Number of nanoseconds per second.
+     * @return the executor running the stream handlers of the executed processes
+     * @see #setStreamHandlerExecutor(Executor)
      */
-    private static final long NANOS_PER_SECOND = 1000000000L;
+    public static Executor getStreamHandlerExecutor() {
+        return streamHandlerExecutor;
+    }
 
     public static int executeCommandLine(Commandline cl, StreamConsumer systemOut, StreamConsumer systemErr)
             throws CommandLineException {
@@ -121,163 +145,466 @@ public static CommandLineCallable executeCommandLineAsCallable(
             final StreamConsumer systemErr,
             final int timeoutInSeconds)
             throws CommandLineException {
-        if (cl == null) {
-            throw new IllegalArgumentException("cl cannot be null.");
-        }
+        final Execution execution = Execution.launch(cl);
+
+        return new CommandLineCallable() {
+
+            @Override
+            public Integer call() throws CommandLineException {
+                return execution.call(feeding(systemIn), systemOut, systemErr, timeoutInSeconds);
+            }
+        };
+    }
+
+    /**
+     * Executes a command line like {@link #executeCommandLine(Commandline, InputStream, StreamConsumer,
+     * StreamConsumer, int)}, measuring the process and the reading of its output.
+     *
+     * @param cl The command line to execute
+     * @param systemIn The input to read from, must be thread safe
+     * @param systemOut A consumer that receives output, must be thread safe
+     * @param systemErr A consumer that receives system error stream output, must be thread safe
+     * @param timeoutInSeconds Positive integer to specify timeout, zero and negative integers for no timeout.
+     * @return the return value of the process, see {@link Process#exitValue()}, with its measures
+     * @throws CommandLineException or CommandLineTimeOutException if time out occurs
+     */
+    public static ExecutionResult executeCommandLineWithResult(
+            Commandline cl,
+            InputStream systemIn,
+            StreamConsumer systemOut,
+            StreamConsumer systemErr,
+            int timeoutInSeconds)
+            throws CommandLineException {
+        final Execution execution = Execution.launch(cl);
+        execution.meter();
+        int returnValue = execution.call(feeding(systemIn), systemOut, systemErr, timeoutInSeconds);
+        return execution.result(returnValue);
+    }
+
+    /**
+     * Executes a command line like {@link #executeCommandLine(Commandline, InputStream, StreamConsumer,
+     * StreamConsumer, int)}, with an input written by a {@link StreamFeeder} of the factory, for instance from a
+     * buffer, a file or text.
+     *
+     * @param cl The command line to execute
+     * @param systemIn Creates the feeder of the input of the process, <code>null</code> for no input
+     * @param systemOut A consumer that receives output, must be thread safe
+     * @param systemErr A consumer that receives system error stream output, must be thread safe
+     * @param timeoutInSeconds Positive integer to specify timeout, zero and negative integers for no timeout.
+     * @return A return value, see {@link Process#exitValue()}
+     * @throws CommandLineException or CommandLineTimeOutException if time out occurs
+     */
+    public static int executeCommandLineWithInput(
+            Commandline cl,
+            StreamFeederFactory systemIn,
+            StreamConsumer systemOut,
+            StreamConsumer systemErr,
+            int timeoutInSeconds)
+            throws CommandLineException {
+        return Execution.launch(cl).call(systemIn, systemOut, systemErr, timeoutInSeconds);
+    }
 
-        final Process p = cl.execute();
+    /**
+     * Immediately forks a process, returns a future completed as soon as the process has exited and its output has
+     * been consumed. The process is killed if it times out or if the future is cancelled.
+     *
+     * @param cl The command line to execute
+     * @param systemIn The input to read from, must be thread safe
+     * @param systemOut A consumer that receives output, must be thread safe
+     * @param systemErr A consumer that receives system error stream output, must be thread safe
+     * @param timeoutInMillis Positive number to specify timeout in milliseconds, zero and negative numbers for no
+     *            timeout.
+     * @return the process return value, see {@link Process#exitValue()}, or a CommandLineTimeOutException if the
+     *         process timed out, or a CommandLineException if processing its streams failed
+     * @throws CommandLineException if the process cannot be started
+     */
+    public static CompletableFuture<Integer> executeCommandLineAsync(
+            final Commandline cl,
+            final InputStream systemIn,
+            final StreamConsumer systemOut,
+            final StreamConsumer systemErr,
+            final long timeoutInMillis)
+            throws CommandLineException {
+        return executeCommandLineAsyncWithInput(cl, feeding(systemIn), systemOut, systemErr, timeoutInMillis);
+    }
 
-        final Thread processHook = new Thread() {
+    /**
+     * Forks a process like {@link #executeCommandLineAsync(Commandline, InputStream, StreamConsumer, StreamConsumer,
+     * long)}, with an input written by a {@link StreamFeeder} of the factory, for instance from a buffer, a file or
+     * text.
+     *
+     * @param cl The command line to execute
+     * @param systemIn Creates the feeder of the input of the process, <code>null</code> for no input
+     * @param systemOut A consumer that receives output, must be thread safe
+     * @param systemErr A consumer that receives system error stream output, must be thread safe
+     * @param timeoutInMillis Positive number to specify timeout in milliseconds, zero and negative numbers for no
+     *            timeout.
+     * @return the process return value, see {@link Process#exitValue()}, or a CommandLineTimeOutException if the
+     *         process timed out, or a CommandLineException if processing its streams failed
+     * @throws CommandLineException if the process cannot be started, or its input cannot be opened
+     */
+    public static CompletableFuture<Integer> executeCommandLineAsyncWithInput(
+            final Commandline cl,
+            final StreamFeederFactory systemIn,
+            final StreamConsumer systemOut,
+            final StreamConsumer systemErr,
+            final long timeoutInMillis)
+            throws CommandLineException {
+        final Execution execution = Execution.launch(cl);
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+        try {
+            execution.startHandlers(systemIn, systemOut, systemErr);
+        } catch (CommandLineException e) {
+            execution.releaseQuietly();
+            throw e;
+        }
 
-            {
-                this.setName("CommandLineUtils process shutdown hook");
-                this.setContextClassLoader(null);
+        if (timeoutInMillis > 0) {
+            final CommandLineTimeOutException timedOut = new CommandLineTimeOutException(
+                    "Error while executing external command, process killed.",
+                    new InterruptedException(
+                            String.format("Process timed out after %d milliseconds.", timeoutInMillis)));
+            final ScheduledFuture<?> timeout = Timeouts.SCHEDULER.schedule(
+                    () -> result.completeExceptionally(timedOut), timeoutInMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((returnValue, failure) -> timeout.cancel(false));
+        }
+        // a timeout or a cancellation kills the process
+        result.whenComplete((returnValue, failure) -> {
+            if (failure != null) {
+                execution.releaseQuietly();
             }
+        });
 
-            @Override
-            public void run() {
-                p.destroy();
+        // waiting for the exit and the streams blocks, which must not take a thread of the stream handler executor
+        onExit(execution.process, Waiters.EXECUTOR).whenCompleteAsync(
+                (process, failure) -> {
+                    try {
+                        if (failure != null) {
+                            throw new CommandLineException("Error while waiting for external command.", failure);
+                        }
+                        int returnValue = execution.drain(process.exitValue());
+                        execution.release(true);
+                        result.complete(returnValue);
+                    } catch (CommandLineException | InterruptedException | RuntimeException e) {
+                        execution.releaseQuietly();
+                        result.completeExceptionally(e);
+                    }
+                },
+                Waiters.EXECUTOR);
+
+        return result;
+    }
+
+    private static StreamFeederFactory feeding(final InputStream systemIn) {
+        return systemIn != null ? processInput -> new StreamFeeder(systemIn, processInput) : null;
+    }
+
+    /**
+     * A started process, with its stream handlers.
+     */
+    private static final class Execution {
+        private static final long CPU_SAMPLING_MILLIS = 100;
+
+        private final Process process;
+
+        private final Executor executor = streamHandlerExecutor;
+
+        private StreamFeeder inputFeeder;
+
+        private StreamPumper outputPumper;
+
+        private StreamPumper errorPumper;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private final long startNanos;
+
+        private StreamMeter outputMeter;
+
+        private StreamMeter errorMeter;
+
+        private final AtomicLong cpuNanos = new AtomicLong(-1);
+
+        private ScheduledFuture<?> cpuSampling;
+
+        private Execution(Process process, long startNanos) {
+            this.process = process;
+            this.startNanos = startNanos;
+        }
+
+        static Execution launch(Commandline cl) throws CommandLineException {
+            if (cl == null) {
+                throw new IllegalArgumentException("cl cannot be null.");
             }
-        };
 
-        ShutdownHookUtils.addShutDownHook(processHook);
+            long startNanos = System.nanoTime();
+            Execution execution = new Execution(cl.execute(), startNanos);
 
-        return new CommandLineCallable() {
+            ProcessReaper.register(execution.process);
 
-            @Override
-            public Integer call() throws CommandLineException {
-                StreamFeeder inputFeeder = null;
-                StreamPumper outputPumper = null;
-                StreamPumper errorPumper = null;
-                boolean success = false;
+            return execution;
+        }
+
+        void startHandlers(StreamFeederFactory systemIn, StreamConsumer systemOut, StreamConsumer systemErr)
+                throws CommandLineException {
+            if (systemIn != null) {
                 try {
-                    if (systemIn != null) {
-                        inputFeeder = new StreamFeeder(systemIn, p.getOutputStream());
-                        inputFeeder.start();
+                    inputFeeder = systemIn.newStreamFeeder(process.getOutputStream());
+                } catch (IOException e) {
+                    throw new CommandLineException("Error opening the input of external command.", e);
+                }
+                start(executor, inputFeeder);
+            }
+
+            if (outputMeter != null) {
+                outputPumper = new StreamPumper(
+                        outputMeter.meter(process.getInputStream()), outputMeter.meter(systemOut));
+            } else {
+                outputPumper = new StreamPumper(process.getInputStream(), systemOut);
+            }
+            start(executor, outputPumper);
+
+            if (errorMeter != null) {
+                errorPumper =
+                        new StreamPumper(errorMeter.meter(process.getErrorStream()), errorMeter.meter(systemErr));
+            } else {
+                errorPumper = new StreamPumper(process.getErrorStream(), systemErr);
+            }
+            start(executor, errorPumper);
+        }
+
+        /**
+         * Starts the stream handlers and waits for the process and its streams.
+         */
+        int call(
+                StreamFeederFactory systemIn,
+                StreamConsumer systemOut,
+                StreamConsumer systemErr,
+                int timeoutInSeconds)
+                throws CommandLineException {
+            boolean success = false;
+            try {
+                startHandlers(systemIn, systemOut, systemErr);
+
+                int returnValue;
+                if (timeoutInSeconds <= 0) {
+                    returnValue = process.waitFor();
+                } else {
+                    if (!process.waitFor(timeoutInSeconds, TimeUnit.SECONDS)) {
+                        throw new InterruptedException(
+                                String.format("Process timed out after %d seconds.", timeoutInSeconds));
                     }
 
-                    outputPumper = new StreamPumper(p.getInputStream(), systemOut);
-                    outputPumper.start();
+                    returnValue = process.exitValue();
+                }
 
-                    errorPumper = new StreamPumper(p.getErrorStream(), systemErr);
-                    errorPumper.start();
+                returnValue = drain(returnValue);
+                success = true;
+                return returnValue;
+            } catch (InterruptedException ex) {
+                throw new CommandLineTimeOutException("Error while executing external command, process killed.", ex);
 
-                    int returnValue;
-                    if (timeoutInSeconds <= 0) {
-                        returnValue = p.waitFor();
-                    } else {
-                        final long now = System.nanoTime();
-                        final long timeout = now + NANOS_PER_SECOND * timeoutInSeconds;
+            } finally {
+                release(success);
+            }
+        }
 
-                        while (isAlive(p) && (System.nanoTime() < timeout)) {
-                            // The timeout is specified in seconds. Therefore we must not sleep longer than one second
-                            // but we should sleep as long as possible to reduce the number of iterations performed.
-                            Thread.sleep(MILLIS_PER_SECOND - 1L);
-                        }
+        /**
+         * Measures the streams of the process, must be called before starting the stream handlers.
+         */
+        void meter() {
+            outputMeter = new StreamMeter(this::sampleCpuTime);
+            errorMeter = new StreamMeter(this::sampleCpuTime);
+            if (pid(process) > 0) {
+                cpuSampling = Timeouts.SCHEDULER.scheduleWithFixedDelay(
+                        this::sampleCpuTime, CPU_SAMPLING_MILLIS, CPU_SAMPLING_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
 
-                        if (isAlive(p)) {
-                            throw new InterruptedException(
-                                    String.format("Process timed out after %d seconds.", timeoutInSeconds));
-                        }
+        /**
+         * Reads the CPU time of the process while it is alive: when it first writes, periodically and while it closes
+         * its streams. The operating system may forget it as soon as the process has exited, so the last sample
+         * misses the time used after the previous one.
+         */
+        private void sampleCpuTime() {
+            long nanos = cpuTimeNanos(process);
+            cpuNanos.accumulateAndGet(nanos, Math::max);
+        }
 
-                        returnValue = p.exitValue();
-                    }
+        /**
+         * @return the result of the metered execution, once its streams have been consumed
+         */
+        ExecutionResult result(int returnValue) {
+            long wallNanos = System.nanoTime() - startNanos;
+            sampleCpuTime();
+            long firstOutputNanos = -1;
+            for (StreamMeter meter : new StreamMeter[] {outputMeter, errorMeter}) {
+                if (meter.hasRead()) {
+                    long nanos = meter.getFirstReadNanos() - startNanos;
+                    firstOutputNanos = firstOutputNanos < 0 ? nanos : Math.min(firstOutputNanos, nanos);
+                }
+            }
+            return new ExecutionResult(
+                    returnValue,
+                    pid(process),
+                    wallNanos,
+                    cpuNanos.get(),
+                    firstOutputNanos,
+                    metrics(outputMeter),
+                    metrics(errorMeter));
+        }
 
-                    // TODO Find out if waitUntilDone needs to be called using a try-finally construct. The method may
-                    // throw an
-                    // InterruptedException so that calls to waitUntilDone may be skipped.
-                    // try
-                    // {
-                    // if ( inputFeeder != null )
-                    // {
-                    // inputFeeder.waitUntilDone();
-                    // }
-                    // }
-                    // finally
-                    // {
-                    // try
-                    // {
-                    // outputPumper.waitUntilDone();
-                    // }
-                    // finally
-                    // {
-                    // errorPumper.waitUntilDone();
-                    // }
-                    // }
-                    if (inputFeeder != null) {
-                        inputFeeder.waitUntilDone();
-                    }
+        private static ExecutionResult.StreamMetrics metrics(StreamMeter meter) {
+            return new ExecutionResult.StreamMetrics(meter.getBytes(), meter.getLines(), meter.getConsumerNanos());
+        }
 
-                    outputPumper.waitUntilDone();
-                    errorPumper.waitUntilDone();
+        /**
+         * Waits for the stream handlers of the exited process.
+         */
+        int drain(int returnValue) throws InterruptedException, CommandLineException {
+            // TODO Find out if waitUntilDone needs to be called using a try-finally construct. The method may
+            // throw an
+            // InterruptedException so that calls to waitUntilDone may be skipped.
+            // try
+            // {
+            // if ( inputFeeder != null )
+            // {
+            // inputFeeder.waitUntilDone();
+            // }
+            // }
+            // finally
+            // {
+            // try
+            // {
+            // outputPumper.waitUntilDone();
+            // }
+            // finally
+            // {
+            // errorPumper.waitUntilDone();
+            // }
+            // }
+            if (inputFeeder != null) {
+                inputFeeder.waitUntilDone();
+            }
 
-                    if (inputFeeder != null) {
-                        inputFeeder.close();
-                        handleException(inputFeeder, "stdin");
-                    }
+            outputPumper.waitUntilDone();
+            errorPumper.waitUntilDone();
 
-                    outputPumper.close();
-                    handleException(outputPumper, "stdout");
+            if (inputFeeder != null) {
+                inputFeeder.close();
+                handleException(inputFeeder, "stdin");
+            }
 
-                    errorPumper.close();
-                    handleException(errorPumper, "stderr");
+            outputPumper.close();
+            handleException(outputPumper, "stdout");
 
-                    success = true;
-                    return returnValue;
-                } catch (InterruptedException ex) {
-                    throw new CommandLineTimeOutException(
-                            "Error while executing external command, process killed.", ex);
+            errorPumper.close();
+            handleException(errorPumper, "stderr");
 
-                } finally {
+            return returnValue;
+        }
+
+        /**
+         * Stops the stream handlers, kills the process if still running and unregisters it from the reaper. Only the
+         * first call has an effect.
+         *
+         * @param success whether the execution succeeded so far, if so the failures of the stream handlers are thrown
+         */
+        void release(boolean success) throws CommandLineException {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (cpuSampling != null) {
+                cpuSampling.cancel(false);
+            }
+
+            if (inputFeeder != null) {
+                inputFeeder.disable();
+            }
+            if (outputPumper != null) {
+                outputPumper.disable();
+            }
+            if (errorPumper != null) {
+                errorPumper.disable();
+            }
+
+            try {
+                ProcessReaper.unregister(process);
+                process.destroy();
+            } finally {
+                try {
                     if (inputFeeder != null) {
-                        inputFeeder.disable();
-                    }
-                    if (outputPumper != null) {
-                        outputPumper.disable();
-                    }
-                    if (errorPumper != null) {
-                        errorPumper.disable();
-                    }
+                        inputFeeder.close();
 
+                        if (success) {
+                            success = false;
+                            handleException(inputFeeder, "stdin");
+                            success = true; // Only reached when no exception has been thrown.
+                        }
+                    }
+                } finally {
                     try {
-                        ShutdownHookUtils.removeShutdownHook(processHook);
-                        processHook.run();
-                    } finally {
-                        try {
-                            if (inputFeeder != null) {
-                                inputFeeder.close();
-
-                                if (success) {
-                                    success = false;
-                                    handleException(inputFeeder, "stdin");
-                                    success = true; // Only reached when no exception has been thrown.
-                                }
+                        if (outputPumper != null) {
+                            outputPumper.close();
+
+                            if (success) {
+                                success = false;
+                                handleException(outputPumper, "stdout");
+                                success = true; // Only reached when no exception has been thrown.
                             }
-                        } finally {
-                            try {
-                                if (outputPumper != null) {
-                                    outputPumper.close();
-
-                                    if (success) {
-                                        success = false;
-                                        handleException(outputPumper, "stdout");
-                                        success = true; // Only reached when no exception has been thrown.
-                                    }
-                                }
-                            } finally {
-                                if (errorPumper != null) {
-                                    errorPumper.close();
-
-                                    if (success) {
-                                        handleException(errorPumper, "stderr");
-                                    }
-                                }
+                        }
+                    } finally {
+                        if (errorPumper != null) {
+                            errorPumper.close();
+
+                            if (success) {
+                                handleException(errorPumper, "stderr");
                             }
                         }
                     }
                 }
             }
-        };
+        }
+
+        void releaseQuietly() {
+            try {
+                release(false);
+            } catch (CommandLineException e) {
+                // only thrown on success
+            }
+        }
+    }
+
+    /**
+     * Lazily created threads waiting for the processes executed asynchronously, and for their stream handlers.
+     */
+    private static final class Waiters {
+        private static final Executor EXECUTOR = newExecutor("plexus-utils-process-waiter-");
+    }
+
+    /**
+     * Lazily started thread killing the processes which time out, and sampling the CPU time of the measured ones.
+     */
+    private static final class Timeouts {
+        private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "CommandLineUtils timeouts");
+            thread.setDaemon(true);
+            thread.setContextClassLoader(null);
+            return thread;
+        });
+
+        static {
+            SCHEDULER.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    private static void start(Executor executor, AbstractStreamHandler handler) throws CommandLineException {
+        try {
+            executor.execute(handler);
+        } catch (RejectedExecutionException e) {
+            throw new CommandLineException("Failed to start stream handler.", e);
+        }
     }
 
     private static void handleException(final StreamPumper streamPumper, final String streamName)
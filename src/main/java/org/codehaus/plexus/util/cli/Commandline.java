@@ -59,6 +59,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -130,6 +131,12 @@ public class Commandline implements Cloneable {
     @Deprecated
     private File workingDir;
 
+    private Redirect redirectInput;
+
+    private Redirect redirectOutput;
+
+    private Redirect redirectError;
+
     /**
      * Create a new command line object. Shell is autodetected from operating system Shell usage is only desirable when
      * generating code for remote execution.
@@ -502,6 +509,9 @@ public Object clone() {
         Commandline c = new Commandline((Shell) shell.clone());
         c.executable = executable;
         c.workingDir = workingDir;
+        c.redirectInput = redirectInput;
+        c.redirectOutput = redirectOutput;
+        c.redirectError = redirectError;
         c.addArguments(getArguments());
         return c;
     }
@@ -569,36 +579,108 @@ public File getWorkingDirectory() {
      * @throws CommandLineException if error
      */
     public Process execute() throws CommandLineException {
+        ProcessBuilder processBuilder = createProcessBuilder();
+
+        try {
+            return processBuilder.start();
+        } catch (IOException ex) {
+            throw new CommandLineException("Error while executing process.", ex);
+        }
+    }
+
+    /**
+     * Creates a builder for the process of this command line. Its environment is the environment of the JVM, which the
+     * JDK only reads once, overridden by the variables added to this command line.
+     *
+     * @return the builder, with the command line, working directory, environment and redirects
+     * @throws CommandLineException if the working directory is invalid
+     */
+    public ProcessBuilder createProcessBuilder() throws CommandLineException {
         // TODO: Provided only for backward compat. with <= 1.4
         verifyShellState();
 
-        Process process;
+        ProcessBuilder processBuilder = new ProcessBuilder(getCommandline());
 
-        // addEnvironment( "MAVEN_TEST_ENVAR", "MAVEN_TEST_ENVAR_VALUE" );
-
-        String[] environment = getEnvironmentVariables();
+        Map<String, String> environment = processBuilder.environment();
+        synchronized (envVars) {
+            for (Map.Entry<String, String> envVar : envVars.entrySet()) {
+                environment.put(envVar.getKey(), String.valueOf(envVar.getValue()));
+            }
+        }
 
         File workingDir = shell.getWorkingDirectory();
 
-        try {
-            if (workingDir == null) {
-                process = Runtime.getRuntime().exec(getCommandline(), environment, workingDir);
-            } else {
-                if (!workingDir.exists()) {
-                    throw new CommandLineException(
-                            "Working directory \"" + workingDir.getPath() + "\" does not exist!");
-                } else if (!workingDir.isDirectory()) {
-                    throw new CommandLineException(
-                            "Path \"" + workingDir.getPath() + "\" does not specify a directory.");
-                }
-
-                process = Runtime.getRuntime().exec(getCommandline(), environment, workingDir);
+        if (workingDir != null) {
+            if (!workingDir.exists()) {
+                throw new CommandLineException("Working directory \"" + workingDir.getPath() + "\" does not exist!");
+            } else if (!workingDir.isDirectory()) {
+                throw new CommandLineException("Path \"" + workingDir.getPath() + "\" does not specify a directory.");
             }
-        } catch (IOException ex) {
-            throw new CommandLineException("Error while executing process.", ex);
+
+            processBuilder.directory(workingDir);
+        }
+
+        if (redirectInput != null) {
+            processBuilder.redirectInput(redirectInput);
+        }
+        if (redirectOutput != null) {
+            processBuilder.redirectOutput(redirectOutput);
         }
+        if (redirectError != null) {
+            processBuilder.redirectError(redirectError);
+        }
+
+        return processBuilder;
+    }
+
+    /**
+     * Sets where the process reads its input from, instead of the <code>systemIn</code> given to
+     * {@link CommandLineUtils}, which must then be <code>null</code>.
+     *
+     * @param redirect the source, <code>null</code> or {@link Redirect#PIPE} for the default
+     */
+    public void setRedirectInput(Redirect redirect) {
+        this.redirectInput = redirect;
+    }
+
+    public Redirect getRedirectInput() {
+        return redirectInput;
+    }
+
+    /**
+     * Sets where the process writes its output, like a file or the output of the JVM with {@link Redirect#INHERIT},
+     * without copying it through Java. The output consumer given to {@link CommandLineUtils} then receives nothing.
+     *
+     * @param redirect the destination, <code>null</code> or {@link Redirect#PIPE} for the default
+     */
+    public void setRedirectOutput(Redirect redirect) {
+        this.redirectOutput = redirect;
+    }
+
+    public Redirect getRedirectOutput() {
+        return redirectOutput;
+    }
 
-        return process;
+    /**
+     * Sets where the process writes its error output, see {@link #setRedirectOutput(Redirect)}.
+     *
+     * @param redirect the destination, <code>null</code> or {@link Redirect#PIPE} for the default
+     */
+    public void setRedirectError(Redirect redirect) {
+        this.redirectError = redirect;
+    }
+
+    public Redirect getRedirectError() {
+        return redirectError;
+    }
+
+    /**
+     * Makes the process use the same input, output and error output as the JVM.
+     */
+    public void inheritIO() {
+        setRedirectInput(Redirect.INHERIT);
+        setRedirectOutput(Redirect.INHERIT);
+        setRedirectError(Redirect.INHERIT);
     }
 
     /**
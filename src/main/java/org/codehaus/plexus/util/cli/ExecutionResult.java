@@ -0,0 +1,163 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The exit code of a process executed by {@link CommandLineUtils#executeCommandLineWithResult(Commandline,
+ * java.io.InputStream, StreamConsumer, StreamConsumer, int)}, with measures telling where its time went.</p>
+ *
+ * <p>A wall time much longer than the CPU time of the process, with a long time spent in the consumers, means that
+ * the process waited for its output to be consumed.</p>
+ *
+ * <p>The pid and the CPU time are only known on Java 9 and later. The CPU time is a best-effort measure: it is sampled
+ * from the operating system while the process runs, so it may miss the time used by the process since the last sample,
+ * and it is unknown if the process exited before the first one.</p>
+ */
+public final class ExecutionResult {
+    private final int exitCode;
+
+    private final long pid;
+
+    private final long wallNanos;
+
+    private final long cpuNanos;
+
+    private final long firstOutputNanos;
+
+    private final StreamMetrics output;
+
+    private final StreamMetrics errorOutput;
+
+    ExecutionResult(
+            int exitCode,
+            long pid,
+            long wallNanos,
+            long cpuNanos,
+            long firstOutputNanos,
+            StreamMetrics output,
+            StreamMetrics errorOutput) {
+        this.exitCode = exitCode;
+        this.pid = pid;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.firstOutputNanos = firstOutputNanos;
+        this.output = output;
+        this.errorOutput = errorOutput;
+    }
+
+    /**
+     * @return the return value of the process, see {@link Process#exitValue()}
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * @return the process id, -1 if unknown
+     */
+    public long getPid() {
+        return pid;
+    }
+
+    /**
+     * @return the time from the start of the process until its output was consumed, in milliseconds
+     */
+    public long getWallTime() {
+        return TimeUnit.NANOSECONDS.toMillis(wallNanos);
+    }
+
+    /**
+     * @return the CPU time used by the process as last sampled, in milliseconds, -1 if unknown
+     */
+    public long getCpuTime() {
+        return cpuNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(cpuNanos);
+    }
+
+    /**
+     * @return the time from the start of the process to its first byte of output or error output, in milliseconds,
+     *         -1 if it wrote nothing
+     */
+    public long getTimeToFirstOutput() {
+        return firstOutputNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstOutputNanos);
+    }
+
+    /**
+     * @return the measures of the output of the process
+     */
+    public StreamMetrics getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the measures of the error output of the process
+     */
+    public StreamMetrics getErrorOutput() {
+        return errorOutput;
+    }
+
+    @Override
+    public String toString() {
+        return "exit code " + exitCode + ", pid " + pid + ", wall time " + getWallTime() + " ms, CPU time "
+                + getCpuTime() + " ms, first output " + getTimeToFirstOutput() + " ms, stdout " + output
+                + ", stderr " + errorOutput;
+    }
+
+    /**
+     * What was read from a stream of the process.
+     */
+    public static final class StreamMetrics {
+        private final long bytes;
+
+        private final long lines;
+
+        private final long consumerNanos;
+
+        StreamMetrics(long bytes, long lines, long consumerNanos) {
+            this.bytes = bytes;
+            this.lines = lines;
+            this.consumerNanos = consumerNanos;
+        }
+
+        /**
+         * @return the number of bytes read
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the number of lines read
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * @return the time spent in the consumer of the lines, while the stream was not read, in milliseconds
+         */
+        public long getConsumerTime() {
+            return TimeUnit.NANOSECONDS.toMillis(consumerNanos);
+        }
+
+        @Override
+        public String toString() {
+            return bytes + " bytes, " + lines + " lines, " + getConsumerTime() + " ms in consumer";
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Destroys the processes still running when the JVM exits, with a single shutdown hook registered along with the first
+ * process.
+ */
+final class ProcessReaper {
+    private static final Set<Process> PROCESSES = ConcurrentHashMap.newKeySet();
+
+    private ProcessReaper() {}
+
+    static void register(Process process) {
+        Hook.register();
+        PROCESSES.add(process);
+    }
+
+    static void unregister(Process process) {
+        PROCESSES.remove(process);
+    }
+
+    private static final class Hook extends Thread {
+        static {
+            ShutdownHookUtils.addShutDownHook(new Hook());
+        }
+
+        private Hook() {
+            setName("CommandLineUtils process shutdown hook");
+            setContextClassLoader(null);
+        }
+
+        /**
+         * Does nothing but loading the class, which registers the hook.
+         */
+        static void register() {}
+
+        @Override
+        public void run() {
+            for (Process process : PROCESSES) {
+                process.destroy();
+            }
+        }
+    }
+}
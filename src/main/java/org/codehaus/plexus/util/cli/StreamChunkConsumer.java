@@ -0,0 +1,35 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+
+/**
+ * Receives the raw bytes pumped from a stream by a {@link StreamPumper}, as they are read and without decoding them
+ * into lines. Like {@link StreamConsumer}, implementations can be called from arbitrary threads.
+ */
+public interface StreamChunkConsumer {
+    /**
+     * Called each time the StreamPumper reads bytes from the stream.
+     *
+     * @param buffer the buffer holding the bytes, only valid during the call
+     * @param offset the offset of the first byte read
+     * @param length the number of bytes read
+     * @throws IOException if consuming the bytes fails.
+     */
+    void consume(byte[] buffer, int offset, int length) throws IOException;
+}
@@ -19,19 +19,42 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codehaus.plexus.util.io.BufferPool;
 
 /**
- * Read from an InputStream and write the output to an OutputStream.
+ * Read from an InputStream, or from bytes or characters in memory, and write the output to an OutputStream.
+ * <p>
+ * The data is written in chunks, {@link #disable()} and {@link #setDone()} are checked between them.
  *
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l</a>
  *
  */
 public class StreamFeeder extends AbstractStreamHandler {
 
+    private static final int SIZE = 32 * 1024;
+
     private InputStream input;
 
     private OutputStream output;
 
+    private final ByteBuffer bytes;
+
+    private final CharSequence text;
+
+    private final Charset charset;
+
+    private boolean written;
+
     private volatile Throwable exception = null;
 
     /**
@@ -41,8 +64,47 @@ public class StreamFeeder extends AbstractStreamHandler {
      * @param output Stream to write to
      */
     public StreamFeeder(InputStream input, OutputStream output) {
+        this(input, null, null, null, output);
+    }
+
+    /**
+     * Create a new StreamFeeder writing the remaining bytes of a buffer, whose position is not changed.
+     *
+     * @param bytes the bytes to write
+     * @param output Stream to write to
+     */
+    public StreamFeeder(ByteBuffer bytes, OutputStream output) {
+        this(null, bytes, null, null, output);
+    }
+
+    /**
+     * Create a new StreamFeeder writing the content of a file.
+     *
+     * @param path the file to write
+     * @param output Stream to write to
+     * @throws IOException if the file cannot be opened
+     */
+    public StreamFeeder(Path path, OutputStream output) throws IOException {
+        this(Files.newInputStream(path), null, null, null, output);
+    }
+
+    /**
+     * Create a new StreamFeeder writing characters, encoded as they are written.
+     *
+     * @param text the characters to write
+     * @param charset the charset to encode the characters with
+     * @param output Stream to write to
+     */
+    public StreamFeeder(CharSequence text, Charset charset, OutputStream output) {
+        this(null, null, text, charset, output);
+    }
+
+    private StreamFeeder(InputStream input, ByteBuffer bytes, CharSequence text, Charset charset, OutputStream output) {
         super();
         this.input = input;
+        this.bytes = bytes;
+        this.text = text;
+        this.charset = charset;
         this.output = output;
     }
 
@@ -104,22 +166,85 @@ public Throwable getException() {
     }
 
     private void feed() throws IOException {
-        boolean flush = false;
-        int data = input.read();
+        if (bytes != null) {
+            feed(bytes.duplicate());
+        } else if (text != null) {
+            feedText();
+        } else {
+            feedStream();
+        }
 
-        while (!isDone() && data != -1) {
-            synchronized (output) {
-                if (!isDisabled()) {
-                    output.write(data);
-                    flush = true;
+        if (written) {
+            output.flush();
+        }
+    }
+
+    private void feedStream() throws IOException {
+        byte[] buffer = BufferPool.acquireBytes(SIZE);
+        try {
+            InputStream input = this.input;
+            for (int n = input.read(buffer); !isDone() && n != -1; n = input.read(buffer)) {
+                write(buffer, 0, n);
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+
+    private void feed(ByteBuffer bytes) throws IOException {
+        if (bytes.hasArray()) {
+            while (!isDone() && bytes.hasRemaining()) {
+                int n = Math.min(bytes.remaining(), SIZE);
+                write(bytes.array(), bytes.arrayOffset() + bytes.position(), n);
+                ((Buffer) bytes).position(bytes.position() + n);
+            }
+        } else {
+            byte[] buffer = BufferPool.acquireBytes(SIZE);
+            try {
+                while (!isDone() && bytes.hasRemaining()) {
+                    int n = Math.min(bytes.remaining(), buffer.length);
+                    bytes.get(buffer, 0, n);
+                    write(buffer, 0, n);
                 }
+            } finally {
+                BufferPool.release(buffer);
+            }
+        }
+    }
 
-                data = input.read();
+    private void feedText() throws IOException {
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.wrap(text);
+        byte[] buffer = BufferPool.acquireBytes(SIZE);
+        try {
+            ByteBuffer encoded = ByteBuffer.wrap(buffer);
+            boolean flushing = false;
+            while (!isDone()) {
+                CoderResult result = flushing ? encoder.flush(encoded) : encoder.encode(chars, encoded, true);
+                write(buffer, 0, encoded.position());
+                ((Buffer) encoded).clear();
+                if (result.isUnderflow()) {
+                    if (flushing) {
+                        break;
+                    }
+                    flushing = true;
+                }
             }
+        } finally {
+            BufferPool.release(buffer);
         }
+    }
 
-        if (flush) {
-            output.flush();
+    private void write(byte[] buffer, int offset, int length) throws IOException {
+        if (length > 0) {
+            synchronized (output) {
+                if (!isDisabled()) {
+                    output.write(buffer, offset, length);
+                    written = true;
+                }
+            }
         }
     }
 }
@@ -0,0 +1,37 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>Creates the {@link StreamFeeder} writing the input of a process once it is started, so that the input can be
+ * given as a buffer, a file or text instead of an <code>InputStream</code>.</p>
+ *
+ * <pre>
+ * CommandLineUtils.executeCommandLineWithInput(cl, in -&gt; new StreamFeeder(path, in), out, err, 0);
+ * </pre>
+ */
+public interface StreamFeederFactory {
+    /**
+     * @param processInput the input stream of the process
+     * @return the feeder writing to it
+     * @throws IOException if the input cannot be opened
+     */
+    StreamFeeder newStreamFeeder(OutputStream processInput) throws IOException;
+}
@@ -0,0 +1,123 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Measures a stream of a process pumped by a {@link StreamPumper}: the bytes read from the stream and the lines given
+ * to the consumer. The counters are only updated by the thread of the pumper.
+ */
+final class StreamMeter {
+    private final Runnable onReadOrEnd;
+
+    private volatile long bytes;
+
+    private volatile long lines;
+
+    private volatile long consumerNanos;
+
+    private volatile long firstReadNanos;
+
+    private volatile boolean read;
+
+    /**
+     * @param onReadOrEnd called by the pumper when the first bytes are read and when the stream reaches its end
+     */
+    StreamMeter(Runnable onReadOrEnd) {
+        this.onReadOrEnd = onReadOrEnd;
+    }
+
+    /**
+     * @return the stream counting the bytes read from the given one
+     */
+    InputStream meter(InputStream in) {
+        return new FilterInputStream(in) {
+            private boolean ended;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                count(b == -1 ? -1 : 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                count(n);
+                return n;
+            }
+
+            private void count(int n) {
+                if (n > 0) {
+                    if (!read) {
+                        firstReadNanos = System.nanoTime();
+                        read = true;
+                        onReadOrEnd.run();
+                    }
+                    bytes += n;
+                } else if (n == -1 && !ended) {
+                    ended = true;
+                    onReadOrEnd.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the consumer counting the lines given to the given one, and the time spent in it
+     */
+    StreamConsumer meter(final StreamConsumer consumer) {
+        return line -> {
+            lines++;
+            if (consumer != null) {
+                long start = System.nanoTime();
+                try {
+                    consumer.consumeLine(line);
+                } finally {
+                    consumerNanos += System.nanoTime() - start;
+                }
+            }
+        };
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    long getLines() {
+        return lines;
+    }
+
+    long getConsumerNanos() {
+        return consumerNanos;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} of the first byte read, only meaningful if {@link #hasRead()}
+     */
+    long getFirstReadNanos() {
+        return firstReadNanos;
+    }
+
+    boolean hasRead() {
+        return read;
+    }
+}
@@ -75,9 +75,16 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+import org.codehaus.plexus.util.io.BufferPool;
 
 /**
  * Class to pump the error stream during Process's runtime. Copied from the Ant built-in task.
+ * <p>
+ * The stream is either decoded into lines given to a {@link StreamConsumer} and printed to a writer, or passed as is
+ * to a {@link StreamChunkConsumer}. The writer is flushed when the stream has no more data available or enough
+ * characters have been printed, not after each line.
  *
  * @author <a href="mailto:fvancea@maxiq.com">Florin Vancea </a>
  * @author <a href="mailto:pj@thoughtworks.com">Paul Julius </a>
@@ -87,13 +94,19 @@
 public class StreamPumper extends AbstractStreamHandler {
     private final BufferedReader in;
 
+    private final InputStream input;
+
     private final StreamConsumer consumer;
 
+    private final StreamChunkConsumer chunkConsumer;
+
     private final PrintWriter out;
 
     private volatile Exception exception = null;
 
-    private static final int SIZE = 1024;
+    private static final int SIZE = 16 * 1024;
+
+    private static final int FLUSH_SIZE = 8 * 1024;
 
     public StreamPumper(InputStream in) {
         this(in, (StreamConsumer) null);
@@ -108,30 +121,88 @@ public StreamPumper(InputStream in, PrintWriter writer) {
     }
 
     public StreamPumper(InputStream in, PrintWriter writer, StreamConsumer consumer) {
+        this(in, writer, consumer, Charset.defaultCharset());
+    }
+
+    /**
+     * @param in the stream to pump
+     * @param writer the writer to print the lines to, can be <code>null</code>
+     * @param consumer the consumer of the lines, can be <code>null</code>
+     * @param charset the charset to decode the stream with
+     */
+    public StreamPumper(InputStream in, PrintWriter writer, StreamConsumer consumer, Charset charset) {
         super();
-        this.in = new BufferedReader(new InputStreamReader(in), SIZE);
+        this.in = new BufferedReader(new InputStreamReader(in, charset), SIZE);
+        this.input = null;
         this.out = writer;
         this.consumer = consumer;
+        this.chunkConsumer = null;
+    }
+
+    /**
+     * @param in the stream to pump
+     * @param consumer the consumer of the bytes read from the stream
+     */
+    public StreamPumper(InputStream in, StreamChunkConsumer consumer) {
+        super();
+        this.in = null;
+        this.input = in;
+        this.out = null;
+        this.consumer = null;
+        this.chunkConsumer = consumer;
     }
 
     @Override
     public void run() {
+        try {
+            if (chunkConsumer != null) {
+                pumpChunks();
+            } else {
+                pumpLines();
+            }
+        } catch (IOException e) {
+            exception = e;
+        } finally {
+            try {
+                if (in != null) {
+                    in.close();
+                } else {
+                    input.close();
+                }
+            } catch (final IOException e2) {
+                if (exception == null) {
+                    exception = e2;
+                }
+            }
+
+            synchronized (this) {
+                setDone();
+
+                this.notifyAll();
+            }
+        }
+    }
+
+    private void pumpLines() throws IOException {
         boolean outError = out != null ? out.checkError() : false;
+        int unflushed = 0;
 
-        try {
-            for (String line = in.readLine(); line != null; line = in.readLine()) {
-                try {
-                    if (exception == null && consumer != null && !isDisabled()) {
-                        consumer.consumeLine(line);
-                    }
-                } catch (Exception t) {
-                    exception = t;
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            try {
+                if (exception == null && consumer != null && !isDisabled()) {
+                    consumer.consumeLine(line);
                 }
+            } catch (Exception t) {
+                exception = t;
+            }
 
-                if (out != null && !outError) {
-                    out.println(line);
+            if (out != null && !outError) {
+                out.println(line);
+                unflushed += line.length() + 1;
 
-                    out.flush();
+                // flush before blocking on the next line
+                if (unflushed >= FLUSH_SIZE || !in.ready()) {
+                    unflushed = 0;
 
                     if (out.checkError()) {
                         outError = true;
@@ -145,22 +216,27 @@ public void run() {
                     }
                 }
             }
-        } catch (IOException e) {
-            exception = e;
-        } finally {
-            try {
-                in.close();
-            } catch (final IOException e2) {
-                if (exception == null) {
-                    exception = e2;
-                }
-            }
+        }
 
-            synchronized (this) {
-                setDone();
+        if (out != null && !outError) {
+            flush();
+        }
+    }
 
-                this.notifyAll();
+    private void pumpChunks() throws IOException {
+        byte[] buffer = BufferPool.acquireBytes(SIZE);
+        try {
+            for (int n = input.read(buffer); n != -1; n = input.read(buffer)) {
+                try {
+                    if (exception == null && n > 0 && !isDisabled()) {
+                        chunkConsumer.consume(buffer, 0, n);
+                    }
+                } catch (Exception t) {
+                    exception = t;
+                }
             }
+        } finally {
+            BufferPool.release(buffer);
         }
     }
 
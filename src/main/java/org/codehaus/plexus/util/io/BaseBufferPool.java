@@ -0,0 +1,13 @@
+package org.codehaus.plexus.util.io;
+
+/**
+ * Implementation specific to Java SE 8 version.
+ */
+abstract class BaseBufferPool {
+    /**
+     * @return <code>true</code>, all the threads are platform threads which are worth keeping buffers for
+     */
+    static boolean isPoolingThread() {
+        return true;
+    }
+}
@@ -0,0 +1,227 @@
+package org.codehaus.plexus.util.io;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Small per thread pool of the temporary <code>byte[]</code>, <code>char[]</code> and direct
+ * <code>ByteBuffer</code> buffers used by the copy methods of this library.</p>
+ *
+ * <p>Buffer sizes are rounded up to a power of two between {@link #MIN_POOLED_SIZE} and {@link #MAX_POOLED_SIZE}, each
+ * thread keeps at most {@link #BUFFERS_PER_SIZE} buffers of each size and type. Larger buffers are never pooled. Since
+ * the pool is thread local, no locking is involved. Virtual threads, which are not reused, do not pool buffers.</p>
+ *
+ * <p>A buffer must be released by the code which acquired it, once it is no longer used, and must not be used
+ * afterwards. Buffers are not cleared.</p>
+ *
+ * <p>Pooling can be disabled with {@link #setEnabled(boolean)} or by starting the JVM with
+ * <code>-Dplexus.bufferPool=false</code>, buffers are then allocated for every use.</p>
+ */
+public final class BufferPool extends BaseBufferPool {
+    /**
+     * Size of the smallest pooled buffer.
+     */
+    public static final int MIN_POOLED_SIZE = 1024;
+
+    /**
+     * Size of the largest pooled buffer.
+     */
+    public static final int MAX_POOLED_SIZE = 64 * 1024;
+
+    /**
+     * Number of buffers of the same size and type a thread keeps.
+     */
+    public static final int BUFFERS_PER_SIZE = 2;
+
+    private static final int SIZE_CLASSES =
+            Integer.numberOfTrailingZeros(MAX_POOLED_SIZE) - Integer.numberOfTrailingZeros(MIN_POOLED_SIZE) + 1;
+
+    private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<Buffers>() {
+        @Override
+        protected Buffers initialValue() {
+            return new Buffers();
+        }
+    };
+
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("plexus.bufferPool"));
+
+    private BufferPool() {}
+
+    /**
+     * @return <code>true</code> if buffers are pooled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables pooling for all threads. Disabling does not free the buffers already pooled by other threads,
+     * they are just no longer handed out.
+     *
+     * @param enabled <code>false</code> to allocate a new buffer for every use
+     */
+    public static void setEnabled(boolean enabled) {
+        BufferPool.enabled = enabled;
+        if (!enabled) {
+            BUFFERS.remove();
+        }
+    }
+
+    /**
+     * @param minSize the minimum size of the buffer
+     * @return a buffer of at least the given size
+     */
+    public static byte[] acquireBytes(int minSize) {
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass >= 0 && enabled && isPoolingThread()) {
+            byte[][] pooled = BUFFERS.get().bytes[sizeClass];
+            for (int i = 0; i < pooled.length; i++) {
+                byte[] buffer = pooled[i];
+                if (buffer != null) {
+                    pooled[i] = null;
+                    return buffer;
+                }
+            }
+            return new byte[size(sizeClass)];
+        }
+        return new byte[minSize];
+    }
+
+    /**
+     * @param buffer a buffer obtained from {@link #acquireBytes(int)}
+     */
+    public static void release(byte[] buffer) {
+        int sizeClass = pooledSizeClass(buffer.length);
+        if (sizeClass >= 0 && enabled && isPoolingThread()) {
+            byte[][] pooled = BUFFERS.get().bytes[sizeClass];
+            for (int i = 0; i < pooled.length; i++) {
+                if (pooled[i] == null) {
+                    pooled[i] = buffer;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param minSize the minimum size of the buffer
+     * @return a buffer of at least the given size
+     */
+    public static char[] acquireChars(int minSize) {
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass >= 0 && enabled && isPoolingThread()) {
+            char[][] pooled = BUFFERS.get().chars[sizeClass];
+            for (int i = 0; i < pooled.length; i++) {
+                char[] buffer = pooled[i];
+                if (buffer != null) {
+                    pooled[i] = null;
+                    return buffer;
+                }
+            }
+            return new char[size(sizeClass)];
+        }
+        return new char[minSize];
+    }
+
+    /**
+     * @param buffer a buffer obtained from {@link #acquireChars(int)}
+     */
+    public static void release(char[] buffer) {
+        int sizeClass = pooledSizeClass(buffer.length);
+        if (sizeClass >= 0 && enabled && isPoolingThread()) {
+            char[][] pooled = BUFFERS.get().chars[sizeClass];
+            for (int i = 0; i < pooled.length; i++) {
+                if (pooled[i] == null) {
+                    pooled[i] = buffer;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param minSize the minimum capacity of the buffer
+     * @return a cleared direct buffer of at least the given capacity
+     */
+    public static ByteBuffer acquireDirect(int minSize) {
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass >= 0 && enabled && isPoolingThread()) {
+            ByteBuffer[] pooled = BUFFERS.get().direct[sizeClass];
+            for (int i = 0; i < pooled.length; i++) {
+                ByteBuffer buffer = pooled[i];
+                if (buffer != null) {
+                    pooled[i] = null;
+                    ((Buffer) buffer).clear();
+                    return buffer;
+                }
+            }
+            return ByteBuffer.allocateDirect(size(sizeClass));
+        }
+        return ByteBuffer.allocateDirect(minSize);
+    }
+
+    /**
+     * @param buffer a buffer obtained from {@link #acquireDirect(int)}
+     */
+    public static void release(ByteBuffer buffer) {
+        int sizeClass = buffer.isDirect() ? pooledSizeClass(buffer.capacity()) : -1;
+        if (sizeClass >= 0 && enabled && isPoolingThread()) {
+            ByteBuffer[] pooled = BUFFERS.get().direct[sizeClass];
+            for (int i = 0; i < pooled.length; i++) {
+                if (pooled[i] == null) {
+                    pooled[i] = buffer;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the size class for a requested size, or -1 if buffers of that size are not pooled
+     */
+    private static int sizeClass(int minSize) {
+        if (minSize > MAX_POOLED_SIZE) {
+            return -1;
+        }
+        if (minSize <= MIN_POOLED_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(minSize - 1) - Integer.numberOfTrailingZeros(MIN_POOLED_SIZE);
+    }
+
+    /**
+     * @return the size class of a buffer handed out by this pool, or -1 if it was not
+     */
+    private static int pooledSizeClass(int length) {
+        int sizeClass = sizeClass(length);
+        return sizeClass >= 0 && size(sizeClass) == length ? sizeClass : -1;
+    }
+
+    private static int size(int sizeClass) {
+        return MIN_POOLED_SIZE << sizeClass;
+    }
+
+    private static final class Buffers {
+        final byte[][][] bytes = new byte[SIZE_CLASSES][BUFFERS_PER_SIZE][];
+
+        final char[][][] chars = new char[SIZE_CLASSES][BUFFERS_PER_SIZE][];
+
+        final ByteBuffer[][] direct = new ByteBuffer[SIZE_CLASSES][BUFFERS_PER_SIZE];
+    }
+}
@@ -21,21 +21,47 @@
 import java.io.OutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
+import org.codehaus.plexus.util.Os;
+
 /**
  * Caching OutputStream to avoid overwriting a file with
  * the same content.
+ * <p>
+ * The existing content is either read back through a buffer or, for large files, compared in place with a
+ * memory mapping of the file, see {@link #CachingOutputStream(Path, int, boolean)}. When a {@link DigestIndex} is
+ * given, the file is not read at all while its index entry is up to date.
  */
 public class CachingOutputStream extends OutputStream {
+    private static final long MAPPING_SIZE = 1L << 30;
+
     private final Path path;
     private FileChannel channel;
     private ByteBuffer readBuffer;
     private ByteBuffer writeBuffer;
     private boolean modified;
+    private final boolean memoryMapped;
+    private long size;
+    private MappedByteBuffer mapping;
+    private long mappingPosition;
+    private final DigestIndex index;
+    private MessageDigest digest;
+    private List<byte[]> digests;
+    private int digestedBytes;
+    private List<byte[]> indexedDigests;
+    private ByteBuffer block;
+    private int comparedBlocks;
 
     public CachingOutputStream(File path) throws IOException {
         this(Objects.requireNonNull(path).toPath());
@@ -46,10 +72,60 @@ public CachingOutputStream(Path path) throws IOException {
     }
 
     public CachingOutputStream(Path path, int bufferSize) throws IOException {
+        this(path, bufferSize, false);
+    }
+
+    /**
+     * @param path the file to write
+     * @param bufferSize the size of the write buffer
+     * @param memoryMapped <code>true</code> to compare the written bytes with a memory mapping of the existing file
+     *            instead of reading it back, which avoids copying large files to the heap. The comparison stops at the
+     *            first difference or when the content gets longer than the existing file, the rest is written as is.
+     *            Ignored on Windows, where a file cannot be truncated while a mapping of it is alive, and mappings are
+     *            only released by the garbage collector.
+     * @throws IOException if the file cannot be opened
+     */
+    public CachingOutputStream(Path path, int bufferSize, boolean memoryMapped) throws IOException {
+        this(path, bufferSize, memoryMapped, null);
+    }
+
+    /**
+     * @param path the file to write
+     * @param bufferSize the size of the write buffer
+     * @param index the digests of the files previously written, compared with the digests of the written bytes
+     *            instead of reading the file if its entry is up to date, and updated when the stream is closed
+     * @throws IOException if the file cannot be opened
+     */
+    public CachingOutputStream(Path path, int bufferSize, DigestIndex index) throws IOException {
+        this(path, bufferSize, false, Objects.requireNonNull(index));
+    }
+
+    private CachingOutputStream(Path path, int bufferSize, boolean memoryMapped, DigestIndex index) throws IOException {
         this.path = Objects.requireNonNull(path);
+        long indexedSize = 0;
+        this.index = index;
+        if (index != null) {
+            this.digest = DigestIndex.newDigest();
+            this.digests = new ArrayList<>();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                this.indexedDigests = index.getDigests(path, attributes);
+                indexedSize = attributes.size();
+            } catch (NoSuchFileException e) {
+                // written from scratch
+            }
+        }
         this.channel =
                 FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
-        this.readBuffer = ByteBuffer.allocate(bufferSize);
+        this.memoryMapped = memoryMapped && !Os.isFamily(Os.FAMILY_WINDOWS);
+        if (this.memoryMapped) {
+            this.size = channel.size();
+        } else if (indexedDigests != null) {
+            // no larger than the file, it only grows if the content gets longer
+            this.block = ByteBuffer.allocate((int) Math.max(1, Math.min(DigestIndex.BLOCK_SIZE, indexedSize)));
+        } else {
+            this.readBuffer = ByteBuffer.allocate(bufferSize);
+        }
         this.writeBuffer = ByteBuffer.allocate(bufferSize);
     }
 
@@ -95,8 +171,19 @@ public void flush() throws IOException {
     }
 
     private void flushBuffer(ByteBuffer writeBuffer) throws IOException {
+        if (index != null) {
+            updateDigests(writeBuffer.duplicate());
+        }
         if (modified) {
             channel.write(writeBuffer);
+        } else if (indexedDigests != null) {
+            compareDigests(writeBuffer);
+        } else if (memoryMapped) {
+            if (!compareMapping(writeBuffer.duplicate())) {
+                modified = true;
+                mapping = null;
+                channel.write(writeBuffer);
+            }
         } else {
             int len = writeBuffer.remaining();
             ByteBuffer readBuffer;
@@ -126,16 +213,124 @@ private void flushBuffer(ByteBuffer writeBuffer) throws IOException {
         }
     }
 
+    /**
+     * Compares the bytes with the existing file at the current position, which is moved after them if they are equal.
+     */
+    private boolean compareMapping(ByteBuffer writeBuffer) throws IOException {
+        long position = channel.position();
+        if (size - position < writeBuffer.remaining()) {
+            return false;
+        }
+        while (writeBuffer.hasRemaining()) {
+            if (mapping == null || position >= mappingPosition + mapping.capacity()) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, MAPPING_SIZE));
+                mappingPosition = position;
+            }
+            int offset = (int) (position - mappingPosition);
+            int len = Math.min(writeBuffer.remaining(), mapping.capacity() - offset);
+            ByteBuffer existing = mapping.duplicate();
+            ((Buffer) existing).position(offset);
+            ((Buffer) existing).limit(offset + len);
+            ByteBuffer written = writeBuffer.duplicate();
+            ((Buffer) written).limit(written.position() + len);
+            if (!existing.equals(written)) {
+                return false;
+            }
+            ((Buffer) writeBuffer).position(writeBuffer.position() + len);
+            position += len;
+        }
+        channel.position(position);
+        return true;
+    }
+
+    private void updateDigests(ByteBuffer writeBuffer) {
+        while (writeBuffer.hasRemaining()) {
+            int len = Math.min(writeBuffer.remaining(), DigestIndex.BLOCK_SIZE - digestedBytes);
+            ByteBuffer chunk = writeBuffer.duplicate();
+            ((Buffer) chunk).limit(chunk.position() + len);
+            digest.update(chunk);
+            ((Buffer) writeBuffer).position(writeBuffer.position() + len);
+            digestedBytes += len;
+            if (digestedBytes == DigestIndex.BLOCK_SIZE) {
+                digests.add(digest.digest());
+                digestedBytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Collects the bytes in blocks whose digests are compared with the indexed ones, writing the block and the rest of
+     * the bytes at the first difference.
+     */
+    private void compareDigests(ByteBuffer writeBuffer) throws IOException {
+        while (writeBuffer.hasRemaining()) {
+            if (!block.hasRemaining()) {
+                growBlock();
+            }
+            int len = Math.min(writeBuffer.remaining(), block.remaining());
+            ByteBuffer chunk = writeBuffer.duplicate();
+            ((Buffer) chunk).limit(chunk.position() + len);
+            block.put(chunk);
+            ((Buffer) writeBuffer).position(writeBuffer.position() + len);
+            if (block.position() == DigestIndex.BLOCK_SIZE) {
+                if (comparedBlocks < indexedDigests.size()
+                        && MessageDigest.isEqual(digests.get(comparedBlocks), indexedDigests.get(comparedBlocks))) {
+                    channel.position(channel.position() + block.position());
+                    ((Buffer) block).clear();
+                    comparedBlocks++;
+                } else {
+                    writeBlock();
+                    channel.write(writeBuffer);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void growBlock() {
+        int capacity = Math.min(DigestIndex.BLOCK_SIZE, Math.max(2 * block.capacity(), writeBuffer.capacity()));
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        ((Buffer) block).flip();
+        larger.put(block);
+        block = larger;
+    }
+
+    private void writeBlock() throws IOException {
+        modified = true;
+        ((Buffer) block).flip();
+        channel.write(block);
+        block = null;
+    }
+
     @Override
     public void close() throws IOException {
         if (channel.isOpen()) {
             flush();
+            if (index != null && digestedBytes > 0) {
+                digests.add(digest.digest());
+            }
+            if (block != null) {
+                // the full blocks are equal, the last one is pending
+                if (digests.size() == indexedDigests.size()
+                        && (block.position() == 0
+                                || MessageDigest.isEqual(
+                                        digests.get(comparedBlocks), indexedDigests.get(comparedBlocks)))) {
+                    channel.position(channel.position() + block.position());
+                    block = null;
+                } else {
+                    writeBlock();
+                }
+            }
             long position = channel.position();
             if (position != channel.size()) {
                 modified = true;
                 channel.truncate(position);
             }
             channel.close();
+            mapping = null;
+            if (index != null) {
+                index.put(path, position, Files.getLastModifiedTime(path).toMillis(), digests);
+            }
         }
     }
 
@@ -0,0 +1,230 @@
+package org.codehaus.plexus.util.io;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Persistent index of the files written by {@link CachingOutputStream}: their size, last modification time and
+ * the digests of their content, one per block of {@link #BLOCK_SIZE} bytes.</p>
+ *
+ * <p>While the size and modification time of a file match its entry, a stream opened with
+ * {@link CachingOutputStream#CachingOutputStream(Path, int, DigestIndex)} compares the digests of the written bytes
+ * with the recorded ones instead of reading the file back. Otherwise the file is read as usual, and the entry is
+ * updated when the stream is closed.</p>
+ *
+ * <pre>
+ * DigestIndex index = DigestIndex.load(Paths.get("target/.digests"));
+ * try (CachingOutputStream out = new CachingOutputStream(path, 32 * 1024, index)) {
+ *     ...
+ * }
+ * index.save();
+ * </pre>
+ *
+ * <p>Files changed by other means without changing their size and modification time are not noticed.</p>
+ */
+public final class DigestIndex {
+    /**
+     * Number of bytes covered by one digest.
+     */
+    public static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private final Path file;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private DigestIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param file the index file, which does not need to exist
+     * @return the index read from the file, empty if it does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static DigestIndex load(Path file) throws IOException {
+        DigestIndex index = new DigestIndex(Objects.requireNonNull(file));
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+            for (String key : properties.stringPropertyNames()) {
+                Entry entry = Entry.parse(properties.getProperty(key));
+                if (entry != null) {
+                    index.entries.put(key, entry);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Writes the index to its file, replacing it.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void save() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, ALGORITHM + " digests of blocks of " + BLOCK_SIZE + " bytes");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Forgets a file, whose next write will read its content.
+     *
+     * @param path the file
+     */
+    public void remove(Path path) {
+        entries.remove(key(path));
+    }
+
+    /**
+     * Forgets all the files.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of files in the index
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the digests of the file if its entry matches its current size and modification time, <code>null</code>
+     *         otherwise
+     */
+    List<byte[]> getDigests(Path path, BasicFileAttributes attributes) {
+        Entry entry = entries.get(key(path));
+        if (entry != null
+                && entry.size == attributes.size()
+                && entry.lastModified == attributes.lastModifiedTime().toMillis()) {
+            return entry.digests;
+        }
+        return null;
+    }
+
+    void put(Path path, long size, long lastModified, List<byte[]> digests) {
+        entries.put(key(path), new Entry(size, lastModified, digests));
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    private static final class Entry {
+        private final long size;
+
+        private final long lastModified;
+
+        private final List<byte[]> digests;
+
+        private Entry(long size, long lastModified, List<byte[]> digests) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digests = Collections.unmodifiableList(new ArrayList<>(digests));
+        }
+
+        /**
+         * @return the entry, <code>null</code> if the value is not a valid entry
+         */
+        private static Entry parse(String value) {
+            String[] fields = value.split(" ");
+            if (fields.length < 2) {
+                return null;
+            }
+            try {
+                List<byte[]> digests = new ArrayList<>();
+                for (int i = 2; i < fields.length; i++) {
+                    digests.add(fromHex(fields[i]));
+                }
+                return new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), digests);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(size).append(' ').append(lastModified);
+            for (byte[] digest : digests) {
+                sb.append(' ');
+                for (byte b : digest) {
+                    sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+                }
+            }
+            return sb.toString();
+        }
+
+        private static byte[] fromHex(String hex) {
+            if (hex.length() % 2 != 0) {
+                throw new IllegalArgumentException(hex);
+            }
+            byte[] bytes = new byte[hex.length() / 2];
+            for (int i = 0; i < bytes.length; i++) {
+                int high = Character.digit(hex.charAt(2 * i), 16);
+                int low = Character.digit(hex.charAt(2 * i + 1), 16);
+                if (high < 0 || low < 0) {
+                    throw new IllegalArgumentException(hex);
+                }
+                bytes[i] = (byte) (high << 4 | low);
+            }
+            return bytes;
+        }
+    }
+}
@@ -7,6 +7,8 @@
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
+import org.codehaus.plexus.util.io.CachingWriter;
+
 /**
  * Implementation specific to Java SE 11 version.
  */
@@ -28,4 +30,20 @@ static void fileWrite( Path path, String encoding, String data, OpenOption... op
             Files.writeString( path, data, openOptions );
         }
     }
+
+    static boolean fileWriteIfChanged( Path path, String encoding, String data ) throws IOException
+    {
+        Charset charset = encoding != null ? Charset.forName( encoding ) : Charset.defaultCharset();
+        CachingWriter writer = new CachingWriter( path, charset );
+        try ( writer )
+        {
+            writer.write( data );
+        }
+        return writer.isModified();
+    }
+
+    static boolean contentEquals( Path path1, Path path2 ) throws IOException
+    {
+        return FileUtils.channelContentEquals( path1, path2 );
+    }
 }
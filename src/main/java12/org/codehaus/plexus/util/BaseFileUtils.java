@@ -0,0 +1,49 @@
+package org.codehaus.plexus.util;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.codehaus.plexus.util.io.CachingWriter;
+
+/**
+ * Implementation specific to Java SE 12 version.
+ */
+abstract class BaseFileUtils
+{
+    static String fileRead( Path path, String encoding ) throws IOException
+    {
+        return encoding != null ? Files.readString( path, Charset.forName( encoding ) ) : Files.readString( path );
+    }
+
+    static void fileWrite( Path path, String encoding, String data, OpenOption... openOptions ) throws IOException
+    {
+        if ( encoding != null )
+        {
+            Files.writeString( path, data, Charset.forName( encoding ), openOptions );
+        }
+        else
+        {
+            Files.writeString( path, data, openOptions );
+        }
+    }
+
+    static boolean fileWriteIfChanged( Path path, String encoding, String data ) throws IOException
+    {
+        Charset charset = encoding != null ? Charset.forName( encoding ) : Charset.defaultCharset();
+        CachingWriter writer = new CachingWriter( path, charset );
+        try ( writer )
+        {
+            writer.write( data );
+        }
+        return writer.isModified();
+    }
+
+    static boolean contentEquals( Path path1, Path path2 ) throws IOException
+    {
+        return Files.mismatch( path1, path2 ) == -1L;
+    }
+}
@@ -0,0 +1,16 @@
+package org.codehaus.plexus.util.io;
+
+/**
+ * Implementation specific to Java SE 21 version.
+ */
+abstract class BaseBufferPool
+{
+    /**
+     * @return <code>false</code> for a virtual thread, which usually runs a single task so that its buffers would
+     *         never be reused
+     */
+    static boolean isPoolingThread()
+    {
+        return !Thread.currentThread().isVirtual();
+    }
+}
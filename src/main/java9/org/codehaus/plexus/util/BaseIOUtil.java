@@ -5,6 +5,7 @@
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.Arrays;
 
 /**
  * Implementation specific to Java SE 9 version.
@@ -16,7 +17,7 @@
     static void copy( final InputStream input, final OutputStream output )
         throws IOException
     {
-        input.transferTo( output );
+        CopyMonitor.transferred( input.transferTo( output ) );
     }
  
     static void copy( final Reader input, final Writer output )
@@ -24,4 +25,9 @@ static void copy( final Reader input, final Writer output )
     {
         IOUtil.copy( input, output, DEFAULT_BUFFER_SIZE );
     }
+
+    static boolean contentEquals( final byte[] b1, final byte[] b2, final int length )
+    {
+        return Arrays.equals( b1, 0, length, b2, 0, length );
+    }
 }
@@ -0,0 +1,52 @@
+package org.codehaus.plexus.util.cli;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation specific to Java SE 9 version.
+ */
+abstract class BaseCommandLineUtils
+{
+    /**
+     * @param name the prefix of the names of the threads
+     * @return a pool of daemon threads, created as needed and reused by the following processes
+     */
+    static Executor newExecutor( final String name )
+    {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor( 0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                                       runnable -> {
+                                           Thread thread = new Thread( runnable, name + count.incrementAndGet() );
+                                           thread.setDaemon( true );
+                                           thread.setContextClassLoader( null );
+                                           return thread;
+                                       } );
+    }
+
+    /**
+     * @return a future completed by the JDK when the process exits
+     */
+    static CompletableFuture<Process> onExit( Process process, Executor executor )
+    {
+        return process.onExit();
+    }
+
+    static long pid( Process process )
+    {
+        return process.pid();
+    }
+
+    /**
+     * @return the CPU time of the process in nanoseconds, -1 if the operating system does not tell it anymore
+     */
+    static long cpuTimeNanos( Process process )
+    {
+        return process.info().totalCpuDuration().map( Duration::toNanos ).orElse( -1L );
+    }
+}
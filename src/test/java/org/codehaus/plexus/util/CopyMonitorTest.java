@@ -0,0 +1,164 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CopyMonitorTest extends FileBasedTestCase {
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @BeforeEach
+    void setUp() {
+        getTestDirectory().mkdirs();
+    }
+
+    @Test
+    void streamCopyProgress() throws Exception {
+        byte[] data = new byte[100000];
+        ByteArrayInputStream input = new ByteArrayInputStream(data);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (CopyMonitor monitor = CopyMonitor.open(listener, 30000)) {
+            IOUtil.copy(input, output);
+        }
+
+        assertEquals(1, listener.started);
+        assertEquals(3, listener.progress.size());
+        assertTrue(listener.progress.get(0) >= 30000);
+        assertEquals(1, listener.finished.size());
+        CopyStatistics statistics = listener.finished.get(0);
+        assertEquals(1, statistics.getCopies());
+        assertEquals(data.length, statistics.getBytes());
+        assertSame(input, listener.source);
+        assertSame(output, listener.destination);
+    }
+
+    @Test
+    void globalStatisticsAreOptIn() throws Exception {
+        byte[] data = new byte[1000];
+        long globalBytes = CopyStatistics.getGlobal().getBytes();
+        IOUtil.copy(new ByteArrayInputStream(data), new ByteArrayOutputStream());
+        assertFalse(CopyStatistics.isGlobalEnabled());
+        assertEquals(globalBytes, CopyStatistics.getGlobal().getBytes());
+
+        CopyStatistics.setGlobalEnabled(true);
+        try {
+            IOUtil.copy(new ByteArrayInputStream(data), new ByteArrayOutputStream());
+        } finally {
+            CopyStatistics.setGlobalEnabled(false);
+        }
+        assertTrue(CopyStatistics.getGlobal().getBytes() >= globalBytes + data.length);
+    }
+
+    @Test
+    void listenerFailureDoesNotMaskCopyFailure() {
+        final IOException failure = new IOException("read failure");
+        final IllegalStateException listenerFailure = new IllegalStateException("listener failure");
+        InputStream input = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw failure;
+            }
+        };
+        CopyListener listener = new RecordingListener() {
+            @Override
+            public void copyFinished(Object source, Object destination, CopyStatistics statistics) {
+                throw listenerFailure;
+            }
+        };
+
+        try (CopyMonitor monitor = CopyMonitor.open(listener, 0)) {
+            IOException e = assertThrows(IOException.class, () -> IOUtil.copy(input, new ByteArrayOutputStream()));
+            assertSame(failure, e);
+            assertSame(listenerFailure, e.getSuppressed()[0]);
+        }
+    }
+
+    @Test
+    void directoryCopyIsOneCopy() throws Exception {
+        File source = new File(getTestDirectory(), "monitor-source");
+        File destination = new File(getTestDirectory(), "monitor-destination");
+        FileUtils.deleteDirectory(source);
+        FileUtils.deleteDirectory(destination);
+        source.mkdirs();
+        createFile(new File(source, "a.bin"), 1000);
+        new File(source, "sub").mkdirs();
+        createFile(new File(source, "sub/b.bin"), 2000);
+
+        try (CopyMonitor monitor = CopyMonitor.open(listener, 0)) {
+            FileUtils.copyDirectoryStructure(source, destination);
+        }
+
+        assertEquals(1, listener.started);
+        assertTrue(listener.progress.isEmpty());
+        assertEquals(1, listener.finished.size());
+        assertEquals(3000, listener.finished.get(0).getBytes());
+        assertSame(source, listener.source);
+    }
+
+    @Test
+    void notReportedWhenClosed() throws Exception {
+        CopyMonitor.open(listener, 1).close();
+        IOUtil.copy(new ByteArrayInputStream(new byte[10]), new ByteArrayOutputStream());
+        assertEquals(0, listener.started);
+    }
+
+    private static class RecordingListener implements CopyListener {
+        int started;
+
+        Object source;
+
+        Object destination;
+
+        final List<Long> progress = new ArrayList<>();
+
+        final List<CopyStatistics> finished = new ArrayList<>();
+
+        @Override
+        public void copyStarted(Object source, Object destination) {
+            started++;
+            this.source = source;
+            this.destination = destination;
+        }
+
+        @Override
+        public void copyProgressed(Object source, Object destination, long bytes) {
+            progress.add(bytes);
+        }
+
+        @Override
+        public void copyFinished(Object source, Object destination, CopyStatistics statistics) {
+            finished.add(statistics);
+        }
+    }
+}
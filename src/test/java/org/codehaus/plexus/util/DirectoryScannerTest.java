@@ -33,6 +33,7 @@
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -182,6 +183,35 @@ void includesExcludesWithWhiteSpaces() throws Exception {
         assertTrue(fileNames.contains(new File("scanner5.dat")), "5 not found.");
     }
 
+    @Test
+    void repeatedPatterns() throws Exception {
+        this.createTestFiles();
+
+        for (int i = 0; i < 3; i++) {
+            List<String> fileNames = FileUtils.getFileNames(new File(testDir), "SCANNER*.dat", "*2.dat", false, false);
+            assertEquals(4, fileNames.size(), "Wrong number of results.");
+            assertFalse(fileNames.contains("scanner2.dat"), "2 found.");
+
+            fileNames = FileUtils.getFileNames(new File(testDir), "SCANNER*.dat", "*2.dat", false, true);
+            assertEquals(0, fileNames.size(), "Wrong number of results.");
+        }
+    }
+
+    @Test
+    void changedPatternsBetweenScans() throws Exception {
+        this.createTestFiles();
+
+        DirectoryScanner ds = new DirectoryScanner();
+        ds.setBasedir(new File(testDir));
+        ds.setIncludes(new String[] {"scanner1.dat"});
+        ds.scan();
+        assertEquals(Arrays.asList("scanner1.dat"), Arrays.asList(ds.getIncludedFiles()));
+
+        ds.setIncludes(new String[] {"scanner2.dat"});
+        ds.scan();
+        assertEquals(Arrays.asList("scanner2.dat"), Arrays.asList(ds.getIncludedFiles()));
+    }
+
     @Test
     void followSymlinksFalse() {
         assumeTrue(checkTestFilesSymlinks());
@@ -536,6 +566,21 @@ void isParentSymbolicLink() throws Exception {
                 ds.isParentSymbolicLink(new File(directory, "symLinkToDirOnTheOutside"), "FileInDirOnTheOutside.txt"));
     }
 
+    @Test
+    void patternsModifiedInPlace() throws Exception {
+        createTestFiles();
+        DirectoryScanner ds = new DirectoryScanner();
+        ds.setBasedir(new File(testDir));
+        ds.setIncludes(new String[] {"scanner1.dat"});
+        ds.scan();
+        assertArrayEquals(new String[] {"scanner1.dat"}, ds.getIncludedFiles());
+
+        // the protected arrays are visible to subclasses
+        ds.includes[0] = "scanner2.dat";
+        ds.scan();
+        assertArrayEquals(new String[] {"scanner2.dat"}, ds.getIncludedFiles());
+    }
+
     @Test
     void defaultExcludes() throws Exception {
         DirectoryScanner ds = new DirectoryScanner();
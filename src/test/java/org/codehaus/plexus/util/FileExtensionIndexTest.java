@@ -0,0 +1,57 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileExtensionIndexTest {
+
+    private static final File BASEDIR = new File("src/test/resources/directorywalker");
+
+    @Test
+    void scan() {
+        FileExtensionIndex index = FileExtensionIndex.scan(BASEDIR);
+
+        assertEquals(Collections.singleton("txt"), index.getExtensions());
+        assertEquals(4, index.getFiles("txt").size());
+        assertEquals(new File(BASEDIR, "file.txt").getAbsolutePath(), index.getFiles("txt").get(0));
+        assertTrue(index.getFiles("java").isEmpty());
+
+        String[] expected = FileUtils.getFilesFromExtension(BASEDIR.getPath(), new String[] {"txt", "java"});
+        String[] actual = index.getFilesFromExtension("txt", "java", "txt");
+        assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(Arrays.asList(actual)));
+        assertEquals(expected.length, actual.length);
+    }
+
+    @Test
+    void scanParallel() {
+        assertEquals(FileExtensionIndex.scan(BASEDIR).asMap(), FileExtensionIndex.scan(BASEDIR, true).asMap());
+    }
+
+    @Test
+    void scanMissingDirectory() {
+        assertTrue(FileExtensionIndex.scan(new File(BASEDIR, "missing")).asMap().isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package org.codehaus.plexus.util;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStatusCacheTest extends FileBasedTestCase {
+
+    @BeforeEach
+    void setUp() {
+        getTestDirectory().mkdirs();
+    }
+
+    @Test
+    void passThroughWhenNotOpen() throws Exception {
+        File file = new File(getTestDirectory(), "status-pass-through.txt");
+        file.delete();
+
+        FileStatusCache status = FileStatusCache.current();
+        assertFalse(status.isEnabled());
+        assertFalse(status.exists(file));
+
+        createFile(file, 10);
+        assertTrue(status.exists(file));
+        assertTrue(status.isFile(file));
+        assertEquals(10, status.length(file));
+    }
+
+    @Test
+    void memoizesUntilInvalidated() throws Exception {
+        File file = new File(getTestDirectory(), "status-memoized.txt");
+        file.delete();
+
+        try (FileStatusCache cache = FileStatusCache.open()) {
+            assertSame(cache, FileStatusCache.current());
+            assertFalse(cache.exists(file));
+
+            Files.write(file.toPath(), new byte[] {1, 2, 3});
+            assertFalse(cache.exists(file));
+
+            cache.invalidate(file);
+            assertTrue(cache.exists(file));
+            assertTrue(cache.isFile(file));
+            assertFalse(cache.isDirectory(file));
+            assertEquals(3, cache.length(file));
+            assertEquals(file.lastModified(), cache.lastModified(file));
+            assertTrue(cache.isDirectory(getTestDirectory()));
+        }
+        assertFalse(FileStatusCache.current().isEnabled());
+    }
+
+    @Test
+    void fileUtilsInvalidatesItsWrites() throws Exception {
+        File source = new File(getTestDirectory(), "status-source.txt");
+        File directory = new File(getTestDirectory(), "status-target");
+        File target = new File(directory, source.getName());
+        FileUtils.deleteDirectory(directory);
+        createFile(source, 100);
+
+        try (FileStatusCache cache = FileStatusCache.open()) {
+            assertFalse(cache.exists(target));
+            assertTrue(SelectorUtils.isOutOfDate(source, target, 0));
+
+            FileUtils.copyFileToDirectoryIfModified(source, directory);
+            assertTrue(cache.exists(target));
+            assertEquals(100, cache.length(target));
+            assertFalse(FileUtils.copyFileIfModified(source, target));
+
+            FileUtils.fileWrite(target, "UTF-8", "changed");
+            assertEquals(7, cache.length(target));
+
+            File link = new File(directory, "status-link.txt");
+            assertFalse(cache.exists(link));
+            FileUtils.linkFile(target, link);
+            assertTrue(cache.exists(link));
+            assertEquals(7, cache.length(link));
+
+            FileUtils.deleteDirectory(directory);
+            assertFalse(cache.exists(directory));
+            assertFalse(cache.exists(target));
+        }
+    }
+
+    @Test
+    void nested() {
+        try (FileStatusCache outer = FileStatusCache.open()) {
+            try (FileStatusCache inner = FileStatusCache.open()) {
+                assertSame(inner, FileStatusCache.current());
+            }
+            assertSame(outer, FileStatusCache.current());
+        }
+        assertFalse(FileStatusCache.current().isEnabled());
+    }
+}
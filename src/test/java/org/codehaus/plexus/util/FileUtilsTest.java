@@ -17,18 +17,33 @@
  */
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -193,6 +208,24 @@ void contentEquals() throws Exception {
         assertTrue(FileUtils.contentEquals(file, file));
     }
 
+    @Test
+    void contentEqualsLargeFiles() throws Exception {
+        byte[] data = new byte[3 * FileUtils.ONE_MB + 17];
+        new Random(42).nextBytes(data);
+        File file1 = new File(getTestDirectory(), getTestMethodName() + ".1");
+        File file2 = new File(getTestDirectory(), getTestMethodName() + ".2");
+        Files.write(file1.toPath(), data);
+        Files.write(file2.toPath(), data);
+        assertTrue(FileUtils.contentEquals(file1, file2));
+
+        data[data.length - 1]++;
+        Files.write(file2.toPath(), data);
+        assertFalse(FileUtils.contentEquals(file1, file2));
+
+        Files.write(file2.toPath(), Arrays.copyOf(data, data.length - 1));
+        assertFalse(FileUtils.contentEquals(file1, file2));
+    }
+
     @Test
     void removePath() {
         String fileName = FileUtils.removePath(new File(getTestDirectory(), getTestMethodName()).getAbsolutePath());
@@ -891,6 +924,68 @@ public Reader getReader(Reader reader) {
         compareFile.delete();
     }
 
+    @Test
+    void bufferFilteredFileCopy() throws Exception {
+        final Properties filterProperties = new Properties();
+        filterProperties.setProperty("s", "sample text");
+
+        FileUtils.FilterWrapper[] wrappers = new FileUtils.FilterWrapper[] {
+            new FileUtils.InterpolationFilterWrapper(filterProperties, "${", "}")
+        };
+
+        File srcFile = new File(getTestDirectory(), "root.txt");
+        StringBuilder content = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("line ").append(i).append(" ${s} $s ${unknown}\n");
+            expected.append("line ").append(i).append(" sample text $s ${unknown}\n");
+        }
+        FileUtils.fileWrite(srcFile, "UTF-8", content.toString());
+
+        File destFile = new File(getTestDirectory(), "target.txt");
+        FileUtils.copyFile(srcFile, destFile, "UTF-8", wrappers);
+        assertEquals(expected.toString(), FileUtils.fileRead(destFile, "UTF-8"));
+
+        // unchanged output keeps its timestamp
+        destFile.setLastModified(1000);
+        FileUtils.copyFile(srcFile, destFile, "UTF-8", wrappers);
+        assertEquals(1000, destFile.lastModified());
+    }
+
+    @Test
+    void interpolationFilterWrapperMatchesReader() throws Exception {
+        Properties filterProperties = new Properties();
+        filterProperties.setProperty("key", "value");
+        filterProperties.setProperty("empty", "");
+
+        String[] tokens = {"${", "}", "@", "@", "#{", "}#"};
+        String[] inputs = {
+            "a ${key} b", "${key}${key}", "$${key}", "${key", "${unknown} ${key}", "${empty}x", "@key@ @@key@",
+            "@unknown@key@", "#{key}# #{key}x #{key", "$", "}", ""
+        };
+        for (int t = 0; t < tokens.length; t += 2) {
+            String beginToken = tokens[t];
+            String endToken = tokens[t + 1];
+            FileUtils.InterpolationFilterWrapper wrapper =
+                    new FileUtils.InterpolationFilterWrapper(filterProperties, beginToken, endToken);
+            for (String input : inputs) {
+                String expected = IOUtil.toString(
+                        new InterpolationFilterReader(new StringReader(input), filterProperties, beginToken, endToken));
+                // feed the input in two blocks split at every position
+                for (int split = 0; split <= input.length(); split++) {
+                    StringBuilder pending = new StringBuilder(input.substring(0, split));
+                    StringBuilder output = new StringBuilder();
+                    CharBuffer buffer = CharBuffer.wrap(pending);
+                    wrapper.filter(buffer, output, false);
+                    pending.delete(0, buffer.position()).append(input.substring(split));
+                    wrapper.filter(CharBuffer.wrap(pending), output, true);
+                    assertEquals(expected, output.toString(), input + " split at " + split);
+                }
+                assertEquals(expected, IOUtil.toString(wrapper.getReader(new StringReader(input))));
+            }
+        }
+    }
+
     @Test
     void filteredWithoutFilterAndOlderFile() throws Exception {
         String content = "This is a test.";
@@ -979,6 +1074,64 @@ void fileReadWithEncoding() throws Exception {
         testFile.delete();
     }
 
+    @Test
+    void lines() throws Exception {
+        File testFile = new File(getTestDirectory(), "testLines.txt");
+        FileUtils.fileWrite(testFile, "UTF-8", "first\nsecond\nthird\n");
+        try (Stream<String> lines = FileUtils.lines(testFile.toPath(), StandardCharsets.UTF_8)) {
+            assertEquals(Arrays.asList("first", "second"), lines.limit(2).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void mapFile() throws Exception {
+        File testFile = new File(getTestDirectory(), "testMapFile.txt");
+        String testString = "Hello caf\u00e9";
+        FileUtils.fileWrite(testFile, "ISO-8859-1", testString);
+
+        CharSequence latin1 = FileUtils.mapFile(testFile.toPath(), StandardCharsets.ISO_8859_1);
+        assertEquals(testString.length(), latin1.length());
+        assertEquals('\u00e9', latin1.charAt(latin1.length() - 1));
+        assertEquals("caf\u00e9", latin1.subSequence(6, 10).toString());
+        assertEquals(testString, latin1.toString());
+        assertTrue(Pattern.compile("c.f").matcher(latin1).find());
+
+        CharSequence ascii = FileUtils.mapFile(testFile.toPath(), StandardCharsets.US_ASCII);
+        assertEquals("Hello caf\uFFFD", ascii.toString());
+        assertEquals('\uFFFD', ascii.charAt(ascii.length() - 1));
+
+        FileUtils.fileWrite(testFile, "UTF-8", testString);
+        assertEquals(testString, FileUtils.mapFile(testFile.toPath(), StandardCharsets.UTF_8).toString());
+    }
+
+    @Test
+    void mapFileUtf8InWindows() throws Exception {
+        File testFile = new File(getTestDirectory(), "testMapFileUtf8.txt");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < 20000; i++) {
+            bytes.write(("line " + i + " caf\u00e9 \u3042 \uD83D\uDE00\n").getBytes(StandardCharsets.UTF_8));
+            if (i % 5000 == 0) {
+                // malformed
+                bytes.write(0xC3);
+            }
+        }
+        Files.write(testFile.toPath(), bytes.toByteArray());
+        String expected = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+
+        CharSequence utf8 = FileUtils.mapFile(testFile.toPath(), StandardCharsets.UTF_8);
+
+        assertEquals(expected.length(), utf8.length());
+        for (int i = 0; i < expected.length(); i += 997) {
+            assertEquals(expected.charAt(i), utf8.charAt(i), "at " + i);
+        }
+        for (int i = expected.length() - 1; i >= 0; i -= 1009) {
+            assertEquals(expected.charAt(i), utf8.charAt(i), "at " + i);
+        }
+        assertEquals(expected, utf8.toString());
+        assertEquals(expected.substring(50000, 120000), utf8.subSequence(50000, 120000).toString());
+        assertTrue(Pattern.compile("line 19999 caf\u00e9").matcher(utf8).find());
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     void fileAppend() throws Exception {
@@ -1037,6 +1190,91 @@ void fileWriteWithEncoding() throws Exception {
         testFile.delete();
     }
 
+    @Test
+    void fileWriteIfChanged() throws Exception {
+        String encoding = "UTF-8";
+        File testFile = new File(getTestDirectory(), "testFileWriteIfChanged.txt");
+        testFile.delete();
+        // unicode escaped Japanese hiragana, "aiueo" + Umlaut a
+        String testString = "あいうえおä";
+
+        assertTrue(FileUtils.fileWriteIfChanged(testFile, encoding, testString));
+        assertEqualContent(testString.getBytes(encoding), testFile);
+
+        testFile.setLastModified(1000);
+        assertFalse(FileUtils.fileWriteIfChanged(testFile, encoding, testString));
+        assertEquals(1000, testFile.lastModified());
+
+        assertTrue(FileUtils.fileWriteIfChanged(testFile.getAbsolutePath(), encoding, testString + "!"));
+        assertEqualContent((testString + "!").getBytes(encoding), testFile);
+
+        assertTrue(FileUtils.fileWriteIfChanged(testFile, encoding, "a"));
+        assertEqualContent("a".getBytes(encoding), testFile);
+        testFile.delete();
+    }
+
+    @Test
+    void copyFileAsync() throws Exception {
+        File destination = new File(getTestDirectory(), "copy-async.txt");
+        destination.delete();
+
+        CopyResult result =
+                FileUtils.copyFileAsync(testFile1, destination, Runnable::run).get();
+
+        assertTrue(destination.exists(), "Check Exist");
+        assertEquals(testFile1Size, destination.length(), "Check Full copy");
+        assertSame(destination, result.getDestination());
+        assertEquals(1, result.getStatistics().getCopies());
+        assertEquals(testFile1Size, result.getStatistics().getBytes());
+    }
+
+    @Test
+    void copyFileAsyncCancelledBeforeStart() throws Exception {
+        File destination = new File(getTestDirectory(), "copy-async-cancelled.txt");
+        destination.delete();
+        List<Runnable> tasks = new ArrayList<>();
+
+        CompletableFuture<CopyResult> result = FileUtils.copyFileAsync(testFile1, destination, tasks::add);
+        result.cancel(false);
+        tasks.forEach(Runnable::run);
+
+        assertTrue(result.isCancelled());
+        assertFalse(destination.exists());
+    }
+
+    @Test
+    void copyDirectoryAsync() throws Exception {
+        File from = new File(getTestDirectory(), "from-async");
+        File to = new File(getTestDirectory(), "to-async");
+        FileUtils.deleteDirectory(from);
+        FileUtils.deleteDirectory(to);
+        new File(from, "a/b").mkdirs();
+        createFile(new File(from, "1.txt"), 100);
+        createFile(new File(from, "a/2.txt"), 200);
+        createFile(new File(from, "a/b/3.txt"), 300);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CopyResult result = FileUtils.copyDirectoryAsync(from, to, executor, 2).get(30, TimeUnit.SECONDS);
+
+            assertEquals(3, result.getStatistics().getCopies());
+            assertEquals(600, result.getStatistics().getBytes());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(100, new File(to, "1.txt").length());
+        assertEquals(200, new File(to, "a/2.txt").length());
+        assertEquals(300, new File(to, "a/b/3.txt").length());
+    }
+
+    @Test
+    void copyDirectoryAsyncMissingSource() throws Exception {
+        CompletableFuture<CopyResult> result = FileUtils.copyDirectoryAsync(
+                new File(getTestDirectory(), "missing-async"), getTestDirectory(), Runnable::run, 1);
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+
     /**
      * Workaround for the following Sun bugs. They are fixed in JDK 6u1 and JDK 5u11.
      *
@@ -17,18 +17,31 @@
  */
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Arrays;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -111,6 +124,31 @@ private void assertEqualContent(byte[] b0, File file) throws IOException {
         assertArrayEquals(b0, b1, "Content differs");
     }
 
+    @Test
+    void contentEquals() throws Exception {
+        byte[] data = new byte[40000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        assertTrue(IOUtil.contentEquals(new ByteArrayInputStream(data), new ByteArrayInputStream(data)));
+        assertTrue(IOUtil.contentEquals(new ByteArrayInputStream(new byte[0]), new ByteArrayInputStream(new byte[0])));
+        assertFalse(IOUtil.contentEquals(
+                new ByteArrayInputStream(data), new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1))));
+
+        byte[] other = data.clone();
+        other[data.length - 1]++;
+        assertFalse(IOUtil.contentEquals(new ByteArrayInputStream(data), new ByteArrayInputStream(other)));
+
+        // streams returning short reads
+        InputStream trickle = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        assertTrue(IOUtil.contentEquals(new ByteArrayInputStream(data), trickle));
+    }
+
     @Test
     void inputStreamToOutputStream() throws Exception {
         File destination = newFile("copy1.txt");
@@ -128,6 +166,62 @@ void inputStreamToOutputStream() throws Exception {
         deleteFile(destination);
     }
 
+    @Test
+    void fileInputStreamToFileOutputStream() throws Exception {
+        File destination = newFile("copy-channel.txt");
+        try (FileInputStream fin = new FileInputStream(testFile);
+                FileOutputStream fout = new FileOutputStream(destination)) {
+            fout.write(new byte[] {1, 2});
+            assertEquals(5, fin.skip(5));
+
+            IOUtil.copy(fin, fout);
+
+            assertEquals(0, fin.available(), "Not all bytes were read");
+            assertEquals(-1, fin.read());
+        }
+        byte[] expected = Files.readAllBytes(testFile.toPath());
+        expected = Arrays.copyOfRange(expected, 3, FILE_SIZE);
+        expected[0] = 1;
+        expected[1] = 2;
+        assertEqualContent(expected, destination);
+        destination.delete();
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void fifoToFileOutputStream() throws Exception {
+        byte[] data = Files.readAllBytes(testFile.toPath());
+        File fifo = newFifo("copy-fifo", data);
+        File destination = newFile("copy-fifo.txt");
+        try (FileInputStream fin = new FileInputStream(fifo);
+                FileOutputStream fout = new FileOutputStream(destination)) {
+            IOUtil.copy(fin, fout);
+        } finally {
+            fifo.delete();
+        }
+        assertEqualContent(data, destination);
+        destination.delete();
+    }
+
+    @Test
+    void channelToChannel() throws Exception {
+        byte[] data = Files.readAllBytes(testFile.toPath());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtil.copy(Channels.newChannel(new ByteArrayInputStream(data)), Channels.newChannel(out));
+        assertArrayEquals(data, out.toByteArray());
+
+        out.reset();
+        IOUtil.copy(testFile.toPath(), out);
+        assertArrayEquals(data, out.toByteArray());
+
+        File destination = newFile("copy-path.txt");
+        try (FileOutputStream fout = new FileOutputStream(destination)) {
+            IOUtil.copy(testFile.toPath(), fout);
+        }
+        assertEqualContent(data, destination);
+        destination.delete();
+    }
+
     @Test
     void inputStreamToWriter() throws Exception {
         File destination = newFile("copy2.txt");
@@ -251,6 +345,93 @@ void inputStreamToByteArray() throws Exception {
         fin.close();
     }
 
+    @Test
+    void fileInputStreamToByteArray() throws Exception {
+        try (InputStream fin = new FileInputStream(testFile)) {
+            assertEquals(7, fin.skip(7));
+            byte[] out = IOUtil.toByteArray(fin);
+            assertEquals(FILE_SIZE - 7, out.length);
+            assertArrayEquals(Arrays.copyOfRange(Files.readAllBytes(testFile.toPath()), 7, FILE_SIZE), out);
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void fifoToByteArray() throws Exception {
+        byte[] data = Files.readAllBytes(testFile.toPath());
+        File fifo = newFifo("bytes-fifo", data);
+        try (InputStream fin = new FileInputStream(fifo)) {
+            assertArrayEquals(data, IOUtil.toByteArray(fin, 16));
+        } finally {
+            fifo.delete();
+        }
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void procFileToByteArray() throws Exception {
+        // the files of /proc have a size of 0
+        try (InputStream fin = new FileInputStream("/proc/self/status")) {
+            assertTrue(IOUtil.toString(fin, "UTF-8").contains("Pid:"));
+        }
+    }
+
+    @Test
+    void growingToByteArray() throws Exception {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        for (int bufferSize : new int[] {1, 7, 999, 1000, 1001}) {
+            assertArrayEquals(data, IOUtil.toByteArray(new ByteArrayInputStream(data), bufferSize));
+        }
+        assertEquals(0, IOUtil.toByteArray(new ByteArrayInputStream(new byte[0]), 16).length);
+    }
+
+    @Test
+    void inputStreamToStringWithEncoding() throws Exception {
+        String text = "plain ascii, \u00e4\u00f6\u00fc, \u3042\u3044\u3046, \ud83d\ude00";
+        for (String encoding : new String[] {"UTF-8", "ISO-8859-1", "UTF-16", "windows-1252"}) {
+            byte[] bytes = text.getBytes(encoding);
+            String expected = new String(bytes, encoding);
+            assertEquals(expected, IOUtil.toString(new ByteArrayInputStream(bytes), encoding, 3), encoding);
+            assertEquals(expected, IOUtil.toString(bytes, encoding), encoding);
+        }
+        byte[] malformed = {'a', (byte) 0xc3, 'b', (byte) 0xe3, (byte) 0x81};
+        assertEquals(new String(malformed, "UTF-8"), IOUtil.toString(new ByteArrayInputStream(malformed), "UTF-8"));
+    }
+
+    @Test
+    void transcode() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append(i % 7 == 0 ? "\u00e4\u3042\ud83d\ude00" : "ascii ");
+        }
+        String[][] conversions = {
+            {"ISO-8859-1", "UTF-8"}, {"UTF-8", "ISO-8859-1"}, {"UTF-8", "UTF-16"}, {"UTF-16", "UTF-8"},
+            {"UTF-8", "UTF-8"}
+        };
+        for (String[] conversion : conversions) {
+            Charset from = Charset.forName(conversion[0]);
+            Charset to = Charset.forName(conversion[1]);
+            String decoded = new String(text.toString().getBytes(from), from);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IOUtil.transcode(new ByteArrayInputStream(decoded.getBytes(from)), from, out, to);
+            assertArrayEquals(decoded.getBytes(to), out.toByteArray(), conversion[0] + " -> " + conversion[1]);
+        }
+
+        byte[] ascii = "plain ascii only".getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtil.transcode(new ByteArrayInputStream(ascii), StandardCharsets.US_ASCII, out, StandardCharsets.UTF_8);
+        assertArrayEquals(ascii, out.toByteArray());
+
+        byte[] malformed = {'a', (byte) 0xc3, 'b', (byte) 0xe3, (byte) 0x81};
+        out.reset();
+        IOUtil.transcode(new ByteArrayInputStream(malformed), StandardCharsets.UTF_8, out, StandardCharsets.UTF_16BE);
+        byte[] replaced = new String(malformed, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_16BE);
+        assertArrayEquals(replaced, out.toByteArray());
+    }
+
     @Test
     void stringToByteArray() throws Exception {
         Reader fin = Files.newBufferedReader(testFile.toPath());
@@ -417,6 +598,24 @@ private File newFile(String filename) throws Exception {
         return destination;
     }
 
+    /**
+     * Creates a FIFO written by another thread once it is opened for reading.
+     */
+    private File newFifo(String filename, byte[] content) throws Exception {
+        File fifo = newFile(filename);
+        assertEquals(0, new ProcessBuilder("mkfifo", fifo.getPath()).start().waitFor());
+        Thread writer = new Thread(() -> {
+            try (OutputStream out = new FileOutputStream(fifo)) {
+                out.write(content);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.setDaemon(true);
+        writer.start();
+        return fifo;
+    }
+
     private void checkFile(File file) throws Exception {
         assertTrue(file.exists(), "Check existence of output file");
         assertEqualContent(testFile, file);
@@ -0,0 +1,156 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.codehaus.plexus.util.cli.AsyncStreamConsumer.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncStreamConsumerTest {
+
+    @Test
+    void block() throws Exception {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncStreamConsumer consumer = new AsyncStreamConsumer(lines::add, 2, OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 1000; i++) {
+                consumer.consumeLine("line " + i);
+            }
+        }
+        assertEquals(expected(1000), lines);
+    }
+
+    @Test
+    void dropOldest() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        AsyncStreamConsumer consumer = new AsyncStreamConsumer(
+                line -> {
+                    await(latch);
+                    lines.add(line);
+                },
+                10,
+                OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 1000; i++) {
+            consumer.consumeLine("line " + i);
+        }
+        latch.countDown();
+        consumer.close();
+
+        assertTrue(consumer.getDroppedLines() >= 989, "dropped " + consumer.getDroppedLines());
+        assertEquals(1000, lines.size() + consumer.getDroppedLines());
+        assertEquals("line 999", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    void spill() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        AsyncStreamConsumer consumer = new AsyncStreamConsumer(
+                line -> {
+                    await(latch);
+                    lines.add(line);
+                },
+                10,
+                OverflowPolicy.SPILL);
+        for (int i = 0; i < 1000; i++) {
+            consumer.consumeLine("line " + i);
+        }
+        latch.countDown();
+        consumer.close();
+
+        assertTrue(consumer.getSpilledLines() >= 989, "spilled " + consumer.getSpilledLines());
+        assertEquals(expected(1000), lines);
+    }
+
+    @Test
+    void consumerFailure() throws Exception {
+        AsyncStreamConsumer consumer = new AsyncStreamConsumer(
+                line -> {
+                    throw new IOException("too bad");
+                },
+                10,
+                OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            consumer.consumeLine("line " + i);
+        }
+        assertThrows(IOException.class, consumer::close);
+    }
+
+    @Test
+    void consumerError() throws Exception {
+        AsyncStreamConsumer consumer = new AsyncStreamConsumer(
+                line -> {
+                    throw new AssertionError("too bad");
+                },
+                10,
+                OverflowPolicy.BLOCK,
+                task -> {
+                    Thread thread = new Thread(task);
+                    thread.setUncaughtExceptionHandler((t, e) -> {});
+                    thread.start();
+                });
+        consumer.consumeLine("line");
+
+        IOException e = assertThrows(IOException.class, consumer::close);
+        assertInstanceOf(AssertionError.class, e.getCause().getCause());
+    }
+
+    @Test
+    void manyIdleConsumers() throws Exception {
+        List<AsyncStreamConsumer> consumers = new ArrayList<>();
+        try {
+            for (int i = 0; i < 300; i++) {
+                consumers.add(new AsyncStreamConsumer(line -> {}, 10, OverflowPolicy.BLOCK));
+            }
+            Commandline cli = new Commandline();
+            cli.setExecutable("echo");
+            cli.createArg().setValue("hi");
+
+            assertEquals(0, CommandLineUtils.executeCommandLine(cli, new DefaultConsumer(), new DefaultConsumer(), 30));
+        } finally {
+            for (AsyncStreamConsumer consumer : consumers) {
+                consumer.close();
+            }
+        }
+    }
+
+    private static List<String> expected(int count) {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.add("line " + i);
+        }
+        return expected;
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CapturingStreamConsumerTest {
+    private final String ls = System.lineSeparator();
+
+    @Test
+    void fitsInMemory() throws Exception {
+        try (CapturingStreamConsumer consumer = new CapturingStreamConsumer(1000, 10, true)) {
+            consumer.consumeLine("line 1");
+            consumer.consumeLine("line 2");
+
+            assertEquals("line 1" + ls + "line 2" + ls, consumer.getOutput());
+            assertFalse(consumer.isTruncated());
+            assertTrue(consumer.getTail().isEmpty());
+            assertNull(consumer.getSpillFile());
+        }
+    }
+
+    @Test
+    void keepsHeadAndTail() throws Exception {
+        CapturingStreamConsumer consumer = new CapturingStreamConsumer(20, 2);
+        for (int i = 0; i < 1000; i++) {
+            consumer.consumeLine("line " + i);
+        }
+
+        assertEquals(1000, consumer.getLineCount());
+        assertTrue(consumer.isTruncated());
+        assertEquals(Arrays.asList("line 998", "line 999"), consumer.getTail());
+        String output = consumer.getOutput();
+        assertTrue(output.startsWith("line 0" + ls + "line 1" + ls), output);
+        assertTrue(output.contains("[... "), output);
+        assertTrue(output.endsWith("line 998" + ls + "line 999" + ls), output);
+    }
+
+    @Test
+    void spillsWholeOutput() throws Exception {
+        CapturingStreamConsumer consumer = new CapturingStreamConsumer(20, 2, true);
+        for (int i = 0; i < 1000; i++) {
+            consumer.consumeLine("line " + i);
+        }
+        consumer.close();
+
+        Path spillFile = consumer.getSpillFile();
+        try {
+            List<String> lines = Files.readAllLines(spillFile, StandardCharsets.UTF_8);
+            assertEquals(1000, lines.size());
+            assertEquals("line 0", lines.get(0));
+            assertEquals("line 999", lines.get(999));
+        } finally {
+            Files.delete(spillFile);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.List;
+
+import org.codehaus.plexus.util.Os;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandLineBatchTest {
+
+    @Test
+    void collectAll() throws Exception {
+        CommandLineBatch batch = new CommandLineBatch(2);
+        for (int i = 0; i < 5; i++) {
+            batch.add(java("-version"));
+        }
+        batch.add(java("-unknownOption"));
+
+        List<CommandLineBatch.Result> results = batch.execute();
+
+        assertEquals(6, results.size());
+        for (int i = 0; i < 5; i++) {
+            CommandLineBatch.Result result = results.get(i);
+            assertTrue(result.isSuccessful(), result.toString());
+            assertTrue(result.getErrorOutput().contains("version"), result.getErrorOutput());
+        }
+        assertTrue(results.get(5).isExecuted());
+        assertFalse(results.get(5).isSuccessful());
+        assertTrue(results.get(5).getExitCode() != 0);
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void failFast() throws Exception {
+        CommandLineBatch batch = new CommandLineBatch(2);
+        batch.setFailFast(true);
+        Commandline sleep = new Commandline();
+        sleep.setExecutable("sleep");
+        sleep.createArg().setValue("10");
+        batch.add(sleep);
+        batch.add(java("-unknownOption"));
+        batch.add(java("-version"));
+        long start = System.nanoTime();
+
+        List<CommandLineBatch.Result> results = batch.execute();
+
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertNotNull(results.get(0).getException());
+        assertFalse(results.get(1).isSuccessful());
+        assertFalse(results.get(2).isExecuted());
+    }
+
+    @Test
+    void invalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandLineBatch(0));
+    }
+
+    private static Commandline java(String arg) {
+        String executable = Os.isFamily(Os.FAMILY_WINDOWS) ? "bin/java.exe" : "bin/java";
+        File java = new File(System.getProperty("java.home"), executable);
+        Commandline cli = new Commandline();
+        cli.setExecutable(java.getAbsolutePath());
+        cli.createArg().setValue(arg);
+        return cli;
+    }
+}
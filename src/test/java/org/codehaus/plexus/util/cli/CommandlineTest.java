@@ -19,7 +19,17 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.Os;
@@ -33,6 +43,8 @@
 import org.junit.jupiter.api.condition.OS;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -278,6 +290,34 @@ void environment() throws Exception {
         assertEquals("name=value", cmd.getEnvironmentVariables()[0]);
     }
 
+    @Test
+    void processBuilderEnvironment() throws Exception {
+        Commandline cmd = new Commandline();
+        cmd.setExecutable("java");
+        cmd.addEnvironment("name", "value");
+        Map<String, String> environment = cmd.createProcessBuilder().environment();
+        assertEquals("value", environment.get("name"));
+        assertTrue(environment.entrySet().containsAll(System.getenv().entrySet()));
+    }
+
+    @Test
+    void redirectErrorToFile() throws Exception {
+        File dir = new File(baseDir, "target/test");
+        dir.mkdirs();
+        File log = new File(dir, "redirected-error.log");
+        log.delete();
+        Commandline cli = new Commandline();
+        cli.setExecutable(javaExecutable());
+        cli.createArg().setValue("-version");
+        cli.setRedirectError(ProcessBuilder.Redirect.to(log));
+        CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
+
+        assertEquals(0, CommandLineUtils.executeCommandLine(cli, new DefaultConsumer(), err));
+
+        assertEquals("", err.getOutput());
+        assertTrue(new String(Files.readAllBytes(log.toPath())).contains("version"));
+    }
+
     @Test
     void environmentWitOverrideSystemEnvironment() throws Exception {
         Commandline cmd = new Commandline();
@@ -447,6 +487,179 @@ private static void makeExecutable(File path) throws IOException {
         }
     }
 
+    @Test
+    void streamHandlerExecutor() throws Exception {
+        AtomicInteger tasks = new AtomicInteger();
+        CommandLineUtils.setStreamHandlerExecutor(task -> {
+            tasks.incrementAndGet();
+            new Thread(task).start();
+        });
+        try {
+            Commandline cli = new Commandline();
+            cli.setExecutable(javaExecutable());
+            cli.createArg().setValue("-version");
+            CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
+
+            assertEquals(0, CommandLineUtils.executeCommandLine(cli, new DefaultConsumer(), err));
+            assertEquals(2, tasks.get());
+            assertTrue(err.getOutput().contains("version"), err.getOutput());
+
+            // waiting for an asynchronous execution takes no task of the executor
+            CompletableFuture<Integer> result =
+                    CommandLineUtils.executeCommandLineAsync(cli, null, new DefaultConsumer(), new DefaultConsumer(), 0);
+            assertEquals(0, result.get(30, TimeUnit.SECONDS));
+            assertEquals(4, tasks.get());
+        } finally {
+            CommandLineUtils.setStreamHandlerExecutor(null);
+        }
+    }
+
+    @Test
+    void executeCommandLineAsync() throws Exception {
+        Commandline cli = new Commandline();
+        cli.setExecutable(javaExecutable());
+        cli.createArg().setValue("-version");
+        CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
+
+        CompletableFuture<Integer> result =
+                CommandLineUtils.executeCommandLineAsync(cli, null, new DefaultConsumer(), err, 0);
+
+        assertEquals(0, result.get(30, TimeUnit.SECONDS));
+        assertTrue(err.getOutput().contains("version"), err.getOutput());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void executeCommandLineAsyncTimeOut() throws Exception {
+        Commandline cli = new Commandline();
+        cli.setExecutable("sleep");
+        cli.createArg().setValue("10");
+        long start = System.nanoTime();
+
+        CompletableFuture<Integer> result =
+                CommandLineUtils.executeCommandLineAsync(cli, null, new DefaultConsumer(), new DefaultConsumer(), 100);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(CommandLineTimeOutException.class, e.getCause());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void manyQuietProcesses() throws Exception {
+        Commandline sleep = new Commandline();
+        sleep.setExecutable("sleep");
+        sleep.createArg().setValue("60");
+        List<CompletableFuture<Integer>> sleeping = new ArrayList<>();
+        try {
+            // more stream handlers blocked on their pipes than the carrier threads of virtual threads
+            for (int i = 0; i < 150; i++) {
+                sleeping.add(CommandLineUtils.executeCommandLineAsync(
+                        sleep, null, new DefaultConsumer(), new DefaultConsumer(), 0));
+            }
+            Commandline echo = new Commandline();
+            echo.setExecutable("echo");
+            echo.createArg().setValue("hi");
+            CommandLineUtils.StringStreamConsumer out = new CommandLineUtils.StringStreamConsumer();
+            long start = System.nanoTime();
+
+            assertEquals(0, CommandLineUtils.executeCommandLine(echo, out, new DefaultConsumer(), 30));
+            assertEquals("hi", out.getOutput().trim());
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        } finally {
+            sleeping.forEach(result -> result.cancel(true));
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void executeCommandLineWithInput() throws Exception {
+        Path dir = Paths.get("target/cli");
+        Files.createDirectories(dir);
+        Path input = Files.createTempFile(dir, "input-", ".txt");
+        Files.write(input, "from a file\n".getBytes(StandardCharsets.UTF_8));
+        Commandline cli = new Commandline();
+        cli.setExecutable("cat");
+        CommandLineUtils.StringStreamConsumer out = new CommandLineUtils.StringStreamConsumer();
+
+        int exitCode = CommandLineUtils.executeCommandLineWithInput(
+                cli, in -> new StreamFeeder(input, in), out, new DefaultConsumer(), 0);
+
+        assertEquals(0, exitCode);
+        assertEquals("from a file" + System.lineSeparator(), out.getOutput());
+
+        CommandLineUtils.StringStreamConsumer asyncOut = new CommandLineUtils.StringStreamConsumer();
+        CompletableFuture<Integer> result = CommandLineUtils.executeCommandLineAsyncWithInput(
+                cli,
+                in -> new StreamFeeder("from text\n", StandardCharsets.UTF_8, in),
+                asyncOut,
+                new DefaultConsumer(),
+                0);
+
+        assertEquals(0, result.get(30, TimeUnit.SECONDS));
+        assertEquals("from text" + System.lineSeparator(), asyncOut.getOutput());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void executeCommandLineWithMissingInput() {
+        Commandline cli = new Commandline();
+        cli.setExecutable("cat");
+        cli.createArg().setValue("-");
+
+        assertThrows(
+                CommandLineException.class,
+                () -> CommandLineUtils.executeCommandLineWithInput(
+                        cli,
+                        in -> new StreamFeeder(Paths.get("missing-input.txt"), in),
+                        new DefaultConsumer(),
+                        new DefaultConsumer(),
+                        0));
+    }
+
+    @Test
+    void executeCommandLineWithResult() throws Exception {
+        Commandline cli = new Commandline();
+        cli.setExecutable(javaExecutable());
+        cli.createArg().setValue("-version");
+        CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
+
+        ExecutionResult result =
+                CommandLineUtils.executeCommandLineWithResult(cli, null, new DefaultConsumer(), err, 0);
+
+        assertEquals(0, result.getExitCode());
+        assertEquals(0, result.getOutput().getBytes());
+        assertEquals(0, result.getOutput().getLines());
+        String[] lines = err.getOutput().split(System.getProperty("line.separator"));
+        assertEquals(lines.length, result.getErrorOutput().getLines());
+        assertTrue(result.getErrorOutput().getBytes() >= err.getOutput().length() - lines.length, result.toString());
+        assertTrue(result.getTimeToFirstOutput() >= 0, result.toString());
+        assertTrue(result.getTimeToFirstOutput() <= result.getWallTime(), result.toString());
+        assertTrue(result.getErrorOutput().getConsumerTime() <= result.getWallTime(), result.toString());
+        if (result.getPid() > 0) {
+            // Java 9 and later, the CPU time is only sampled, the process may have exited before
+            assertTrue(result.getCpuTime() >= -1, result.toString());
+        } else {
+            assertEquals(-1, result.getPid(), result.toString());
+            assertEquals(-1, result.getCpuTime(), result.toString());
+        }
+    }
+
+    private static String javaExecutable() throws IOException {
+        File javaHome = new File(System.getProperty("java.home"));
+        File java;
+        if (Os.isFamily(Os.FAMILY_WINDOWS)) {
+            java = new File(javaHome, "/bin/java.exe");
+        } else {
+            java = new File(javaHome, "/bin/java");
+        }
+
+        if (!java.exists()) {
+            throw new IOException(java.getAbsolutePath() + " doesn't exist");
+        }
+        return java.getAbsolutePath();
+    }
+
     /**
      * Create and execute a script file in the given dir with the given content. The script file will be called
      * <code>echo.bat</code> for Windows box, otherwise <code>echo</code>.
@@ -0,0 +1,147 @@
+package org.codehaus.plexus.util.cli;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamFeederTest {
+    private final byte[] data = new byte[100000];
+
+    {
+        new Random(0).nextBytes(data);
+    }
+
+    @Test
+    void feedsInChunks() {
+        CountingOutputStream output = new CountingOutputStream();
+        StreamFeeder feeder = new StreamFeeder(new ByteArrayInputStream(data), output);
+        feeder.run();
+
+        assertNull(feeder.getException());
+        assertTrue(feeder.isDone());
+        assertArrayEquals(data, output.toByteArray());
+        assertTrue(output.writes < 10, output.writes + " writes");
+        assertTrue(output.closed);
+    }
+
+    @Test
+    void feedsByteBuffer() {
+        ByteBuffer heap = ByteBuffer.wrap(data, 10, data.length - 10);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new StreamFeeder(heap, output).run();
+        assertArrayEquals(copy(10), output.toByteArray());
+        assertEquals(10, heap.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        output = new ByteArrayOutputStream();
+        new StreamFeeder(direct, output).run();
+        assertArrayEquals(data, output.toByteArray());
+    }
+
+    @Test
+    void feedsFile() throws Exception {
+        Path dir = Paths.get("target/cli");
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, "input-", ".bin");
+        try {
+            Files.write(file, data);
+            CountingOutputStream output = new CountingOutputStream();
+            StreamFeeder feeder = new StreamFeeder(file, output);
+            feeder.run();
+            feeder.close();
+
+            assertNull(feeder.getException());
+            assertArrayEquals(data, output.toByteArray());
+            assertTrue(output.closed);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void missingFile() {
+        assertThrows(
+                NoSuchFileException.class,
+                () -> new StreamFeeder(Paths.get("target/cli/missing.bin"), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void feedsText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("héllo ").append(i).append('\n');
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new StreamFeeder(text, StandardCharsets.UTF_8, output).run();
+        assertEquals(text.toString(), new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void disabled() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StreamFeeder feeder = new StreamFeeder(new ByteArrayInputStream(data), output);
+        feeder.disable();
+        feeder.run();
+        assertEquals(0, output.size());
+    }
+
+    private byte[] copy(int from) {
+        byte[] copy = new byte[data.length - from];
+        System.arraycopy(data, from, copy, 0, copy.length);
+        return copy;
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        int writes;
+
+        boolean closed;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            writes++;
+            super.write(b);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
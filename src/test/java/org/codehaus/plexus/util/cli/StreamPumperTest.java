@@ -53,16 +53,22 @@
  */
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -115,6 +121,60 @@ void pumperReadsInputStreamUntilEndEvenIfConsumerFails() {
         assertNotNull(pumper.getException());
     }
 
+    @Test
+    void pumpingWithCharset() {
+        String line = "h\u00e9llo w\u00f6rld";
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_16));
+        TestConsumer consumer = new TestConsumer();
+        StreamPumper pumper = new StreamPumper(inputStream, null, consumer, StandardCharsets.UTF_16);
+        pumper.run();
+        assertEquals(Collections.singletonList(line), consumer.lines);
+    }
+
+    @Test
+    void pumpingWithPrintWriterFlushesInBatches() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            lines.append("line ").append(i).append('\n');
+        }
+        AtomicInteger flushes = new AtomicInteger();
+        StringWriter sw = new StringWriter() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+        StreamPumper pumper =
+                new StreamPumper(new ByteArrayInputStream(lines.toString().getBytes()), new PrintWriter(sw));
+        pumper.run();
+        assertEquals(lines.toString().replace("\n", lineSeparator), sw.toString());
+        assertTrue(flushes.get() < 10, "flushed " + flushes + " times");
+        assertNull(pumper.getException());
+    }
+
+    @Test
+    void pumpingChunks() {
+        GeneratorInputStream gis = new GeneratorInputStream(100000);
+        AtomicLong consumed = new AtomicLong();
+        StreamPumper pumper = new StreamPumper(gis, (buffer, offset, length) -> consumed.addAndGet(length));
+        pumper.run();
+        assertEquals(100000, consumed.get());
+        assertTrue(gis.closed);
+        assertTrue(pumper.isDone());
+        assertNull(pumper.getException());
+    }
+
+    @Test
+    void pumpingChunksReadsInputStreamUntilEndEvenIfConsumerFails() {
+        GeneratorInputStream gis = new GeneratorInputStream(1024 * 1024);
+        StreamPumper pumper = new StreamPumper(gis, (buffer, offset, length) -> {
+            throw new IOException("too bad");
+        });
+        pumper.run();
+        assertEquals(gis.size, gis.read, "input stream was not fully consumed, producer deadlocks");
+        assertNotNull(pumper.getException());
+    }
+
     static class GeneratorInputStream extends InputStream {
 
         final int size;
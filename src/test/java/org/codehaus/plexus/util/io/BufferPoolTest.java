@@ -0,0 +1,81 @@
+package org.codehaus.plexus.util.io;
+
+/*
+ * Copyright The Codehaus Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BufferPoolTest {
+
+    @AfterEach
+    void enable() {
+        BufferPool.setEnabled(true);
+    }
+
+    @Test
+    void reusesReleasedBuffers() {
+        byte[] bytes = BufferPool.acquireBytes(5000);
+        assertEquals(8192, bytes.length);
+        BufferPool.release(bytes);
+        assertSame(bytes, BufferPool.acquireBytes(8192));
+        assertNotSame(bytes, BufferPool.acquireBytes(8192));
+
+        char[] chars = BufferPool.acquireChars(100);
+        assertEquals(BufferPool.MIN_POOLED_SIZE, chars.length);
+        BufferPool.release(chars);
+        assertSame(chars, BufferPool.acquireChars(1));
+    }
+
+    @Test
+    void boundedPerSize() {
+        byte[][] buffers = new byte[BufferPool.BUFFERS_PER_SIZE + 1][];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = BufferPool.acquireBytes(4096);
+        }
+        for (byte[] buffer : buffers) {
+            BufferPool.release(buffer);
+        }
+        for (int i = 0; i < BufferPool.BUFFERS_PER_SIZE; i++) {
+            assertSame(buffers[i], BufferPool.acquireBytes(4096));
+        }
+        assertNotSame(buffers[BufferPool.BUFFERS_PER_SIZE], BufferPool.acquireBytes(4096));
+    }
+
+    @Test
+    void largeAndForeignBuffersAreNotPooled() {
+        byte[] large = BufferPool.acquireBytes(BufferPool.MAX_POOLED_SIZE + 1);
+        assertEquals(BufferPool.MAX_POOLED_SIZE + 1, large.length);
+        BufferPool.release(large);
+
+        byte[] foreign = new byte[3000];
+        BufferPool.release(foreign);
+        assertNotSame(foreign, BufferPool.acquireBytes(3000));
+    }
+
+    @Test
+    void disabled() {
+        BufferPool.setEnabled(false);
+        byte[] bytes = BufferPool.acquireBytes(5000);
+        assertEquals(5000, bytes.length);
+        BufferPool.release(bytes);
+        assertNotSame(bytes, BufferPool.acquireBytes(5000));
+    }
+}
@@ -22,7 +22,9 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -127,4 +129,152 @@ void writeNoExistingFile() throws Exception {
         assertNotEquals(modified, newModified);
         modified = newModified;
     }
+
+    @Test
+    void writeMemoryMapped() throws Exception {
+        byte[] data = new byte[100000];
+        new Random(0).nextBytes(data);
+        Path path = tempDir.resolve("mapped.bin");
+
+        assertTrue(writeMemoryMapped(path, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+        FileTime modified = Files.getLastModifiedTime(path);
+
+        waitLastModified();
+
+        // same data
+        assertFalse(writeMemoryMapped(path, data, data.length));
+        assertEquals(modified, Files.getLastModifiedTime(path));
+
+        // different data same size
+        data[50000]++;
+        assertTrue(writeMemoryMapped(path, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+
+        // same data but shorter
+        assertTrue(writeMemoryMapped(path, data, 70000));
+        assertArrayEquals(Arrays.copyOf(data, 70000), Files.readAllBytes(path));
+
+        // same data but longer
+        assertTrue(writeMemoryMapped(path, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+    }
+
+    @Test
+    void writeMemoryMappedShorter() throws Exception {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        Path path = tempDir.resolve("mapped-shorter.bin");
+        Files.write(path, data);
+
+        // the previous mappings of the file may still be alive when it is truncated
+        assertFalse(writeMemoryMapped(path, data, data.length));
+        assertTrue(writeMemoryMapped(path, data, 50000));
+        assertArrayEquals(Arrays.copyOf(data, 50000), Files.readAllBytes(path));
+        assertTrue(writeMemoryMapped(path, data, 0));
+        assertEquals(0, Files.size(path));
+    }
+
+    private static boolean writeMemoryMapped(Path path, byte[] data, int len) throws IOException {
+        CachingOutputStream cos = new CachingOutputStream(path, 4096, true);
+        try {
+            for (int off = 0; off < len; off += 1000) {
+                cos.write(data, off, Math.min(1000, len - off));
+            }
+        } finally {
+            cos.close();
+        }
+        return cos.isModified();
+    }
+
+    @Test
+    void writeWithDigestIndex() throws Exception {
+        byte[] data = new byte[DigestIndex.BLOCK_SIZE * 5 / 2];
+        new Random(0).nextBytes(data);
+        Path path = tempDir.resolve("indexed.bin");
+        Path indexFile = tempDir.resolve("digests.properties");
+        DigestIndex index = DigestIndex.load(indexFile);
+
+        assertTrue(writeWithDigestIndex(path, index, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+        assertEquals(1, index.size());
+        index.save();
+        FileTime modified = Files.getLastModifiedTime(path);
+
+        waitLastModified();
+
+        // same data, with a reloaded index
+        index = DigestIndex.load(indexFile);
+        assertFalse(writeWithDigestIndex(path, index, data, data.length));
+        assertEquals(modified, Files.getLastModifiedTime(path));
+
+        // different data in the second block
+        data[DigestIndex.BLOCK_SIZE + 10]++;
+        assertTrue(writeWithDigestIndex(path, index, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+
+        // different data in the last block
+        data[data.length - 1]++;
+        assertTrue(writeWithDigestIndex(path, index, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+
+        // same data but shorter
+        assertTrue(writeWithDigestIndex(path, index, data, DigestIndex.BLOCK_SIZE * 2));
+        assertArrayEquals(Arrays.copyOf(data, DigestIndex.BLOCK_SIZE * 2), Files.readAllBytes(path));
+        assertFalse(writeWithDigestIndex(path, index, data, DigestIndex.BLOCK_SIZE * 2));
+
+        // same data but longer
+        assertTrue(writeWithDigestIndex(path, index, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+    }
+
+    @Test
+    void writeSmallFileWithDigestIndex() throws Exception {
+        byte[] data = new byte[DigestIndex.BLOCK_SIZE * 3 / 2];
+        new Random(0).nextBytes(data);
+        Path path = tempDir.resolve("small.bin");
+        DigestIndex index = DigestIndex.load(tempDir.resolve("digests.properties"));
+
+        assertTrue(writeWithDigestIndex(path, index, data, 100));
+        assertFalse(writeWithDigestIndex(path, index, data, 100));
+
+        // longer than the indexed file, beyond the first digested block
+        assertTrue(writeWithDigestIndex(path, index, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+        assertFalse(writeWithDigestIndex(path, index, data, data.length));
+
+        // longer than the indexed file, within the first digested block
+        assertTrue(writeWithDigestIndex(path, index, data, 100));
+        assertTrue(writeWithDigestIndex(path, index, data, 50000));
+        assertArrayEquals(Arrays.copyOf(data, 50000), Files.readAllBytes(path));
+        assertFalse(writeWithDigestIndex(path, index, data, 50000));
+    }
+
+    @Test
+    void writeWithStaleDigestIndex() throws Exception {
+        byte[] data = "Hello world!".getBytes(StandardCharsets.UTF_8);
+        Path path = tempDir.resolve("stale.txt");
+        DigestIndex index = DigestIndex.load(tempDir.resolve("digests.properties"));
+        assertTrue(writeWithDigestIndex(path, index, data, data.length));
+
+        // changed behind the index, the file is read again
+        Files.write(path, "Hello World!".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(1000));
+        assertTrue(writeWithDigestIndex(path, index, data, data.length));
+        assertArrayEquals(data, Files.readAllBytes(path));
+
+        assertFalse(writeWithDigestIndex(path, index, data, data.length));
+    }
+
+    private static boolean writeWithDigestIndex(Path path, DigestIndex index, byte[] data, int len) throws IOException {
+        CachingOutputStream cos = new CachingOutputStream(path, 4096, index);
+        try {
+            for (int off = 0; off < len; off += 10000) {
+                cos.write(data, off, Math.min(10000, len - off));
+            }
+        } finally {
+            cos.close();
+        }
+        return cos.isModified();
+    }
 }